@@ -0,0 +1,29 @@
+package com.coooolfan.easyhome.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * RAG 检索线程池，向量化与 JDBC 查询以阻塞 IO 为主，使用虚拟线程
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService ragExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("rag-", 0).factory());
+    }
+
+    /**
+     * 响应式链路中的阻塞调用统一 subscribeOn 到该调度器，避免占用请求线程与 Reactor 非阻塞线程
+     */
+    @Bean
+    public Scheduler ragScheduler(ExecutorService ragExecutor) {
+        return Schedulers.fromExecutorService(ragExecutor, "rag");
+    }
+}
@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.autoconfigure.ConfigurationCustomizer;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
 import com.coooolfan.easyhome.handle.StringListTypeHandler;
+import com.coooolfan.easyhome.handle.VectorTypeHandler;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,7 +20,10 @@ import org.springframework.context.annotation.Configuration;
 public class MybatisPlusConfig {
     @Bean
     public ConfigurationCustomizer configurationCustomizer() {
-        return configuration -> configuration.getTypeHandlerRegistry().register(StringListTypeHandler.class);
+        return configuration -> {
+            configuration.getTypeHandlerRegistry().register(StringListTypeHandler.class);
+            configuration.getTypeHandlerRegistry().register(VectorTypeHandler.class);
+        };
     }
 
     @Bean
@@ -0,0 +1,25 @@
+package com.coooolfan.easyhome.config;
+
+import com.coooolfan.easyhome.message.HouseCacheInvalidationListener;
+import com.coooolfan.easyhome.service.impl.HouseCacheServiceImpl;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisConfig {
+
+    /**
+     * 订阅房源缓存失效频道，保证多节点本地缓存一致
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       HouseCacheInvalidationListener listener) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(listener, new ChannelTopic(HouseCacheServiceImpl.INVALIDATE_CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,19 @@
+package com.coooolfan.easyhome.constant;
+
+/**
+ * 用户问题的意图，取值与 {@link LLMConstant#SYSTEM_INTERCEPT_MESSAGE} 要求模型回复的单词一致
+ */
+public enum ChatIntent {
+    /**
+     * 与二手房无关，请用户重新提问
+     */
+    AGAIN,
+    /**
+     * 与房源相关但信息过少，请用户补充
+     */
+    MORE,
+    /**
+     * 可以继续检索并回答
+     */
+    CONTINUE
+}
@@ -0,0 +1,23 @@
+package com.coooolfan.easyhome.constant;
+
+/**
+ * 分页总数的统计方式
+ */
+public enum CountMode {
+    /**
+     * 精确 COUNT(*)
+     */
+    EXACT,
+    /**
+     * 估算：无筛选条件时取 pg_class.reltuples，有筛选条件时取执行计划的预估行数
+     */
+    ESTIMATED,
+    /**
+     * 先估算，估算值低于阈值时再精确统计
+     */
+    AUTO,
+    /**
+     * 不统计总数
+     */
+    NONE
+}
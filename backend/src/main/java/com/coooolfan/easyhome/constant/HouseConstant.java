@@ -8,4 +8,5 @@ public class HouseConstant {
     public static final String FAIL_UPDATE = "更新房屋信息失败";
     public static final String FAIL_ADD = "添加房屋信息失败";
     public static final String ID_CANNOT_BE_NULL = "房屋ID不能为空";
+    public static final String INVALID_CURSOR = "分页游标无效，请从第一页重新查询";
 }
@@ -2,6 +2,9 @@ package com.coooolfan.easyhome.constant;
 
 import com.coooolfan.easyhome.pojo.dto.StreamChatResp;
 
+import java.util.List;
+import java.util.Map;
+
 public class LLMConstant {
     public static final String RAG_REWRITE = """
             Given the following conversation and a follow-up question, rephrase the follow up question to be a standalone question, in its original language. Keep as much details as possible from previous messages. Keep entity names and all. 
@@ -12,6 +15,18 @@ public class LLMConstant {
             %s
             """.trim();
 
+    public static final String HISTORY_SUMMARY = """
+            Progressively summarize the conversation below, adding onto the previous summary and returning a new summary, in the original language of the conversation.
+            Keep every requirement the user has stated about houses (location, budget, layout, area, orientation, decoration and so on) and the house IDs that were recommended.
+            the previous summary:
+            %s
+            ---
+            new lines of conversation:
+            %s
+            """.trim();
+
+    public static final String HISTORY_SUMMARY_PREFIX = "以下是此前对话的摘要：\n";
+
     public static final String SYSTEM_MESSAGE = """
             You are a helpful assistant. You can answer questions about the house, such as the number of rooms, the area, the price, and so on.
             If you don't know the answer, you can ask the user to provide more information about what they are looking for.
@@ -31,12 +46,49 @@ public class LLMConstant {
             <USER_QUEST> %s </USER_QUEST>
             """.trim();
 
+    /**
+     * 本地意图分类的标注样例，问题向量与各意图样例的最大余弦相似度即该意图得分
+     */
+    public static final Map<ChatIntent, List<String>> INTENT_PROTOTYPES = Map.of(
+            ChatIntent.AGAIN, List.of(
+                    "今天天气怎么样",
+                    "帮我写一首诗",
+                    "你是谁开发的",
+                    "推荐一部好看的电影",
+                    "红烧肉怎么做",
+                    "帮我写一段Python代码",
+                    "讲个笑话",
+                    "明天股票会涨吗"),
+            ChatIntent.MORE, List.of(
+                    "帮我推荐房子",
+                    "有没有好房子",
+                    "我想买房",
+                    "房子",
+                    "给我推荐一下",
+                    "有什么推荐的吗",
+                    "我想看看房"),
+            ChatIntent.CONTINUE, List.of(
+                    "推荐一套总价200万以内的三室两厅",
+                    "地铁附近有没有两居室",
+                    "公园一号的房子多少钱一平",
+                    "南北通透精装修的房子有哪些",
+                    "100平米左右的房子有哪些",
+                    "这套房子是哪年建的",
+                    "二手房交易需要交哪些税",
+                    "贷款买房需要什么条件"));
+
     public static final StreamChatResp REJECT_STREAM_CHAT_RESP = new StreamChatResp(
             "我擅长回答与二手房相关的问题，如果你有其他问题，请重新提问或者提供更多信息。",
             "System",
             true,
             "我擅长回答与二手房相关的问题，如果你有其他问题，请重新提问或者提供更多信息。"
     );
+    public static final StreamChatResp BUSY_STREAM_CHAT_RESP = new StreamChatResp(
+            "上一条消息还在回答中，请等待回答结束后再发送。",
+            "System",
+            true,
+            "上一条消息还在回答中，请等待回答结束后再发送。"
+    );
     public static final StreamChatResp MORE_STEAM_CHAT_RESP = new StreamChatResp(
             "请提供更多信息，我需要更多的上下文来回答你的问题，比如房屋的具体位置、户型、面积等信息。",
             "System",
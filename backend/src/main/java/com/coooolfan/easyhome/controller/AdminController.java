@@ -10,9 +10,18 @@ import com.coooolfan.easyhome.pojo.dto.UserQueryDTO;
 import com.coooolfan.easyhome.pojo.dto.UserUpdateDTO;
 import com.coooolfan.easyhome.pojo.entity.House;
 import com.coooolfan.easyhome.pojo.entity.SysUser;
+import com.coooolfan.easyhome.pojo.vo.CacheStatsVO;
+import com.coooolfan.easyhome.pojo.vo.ChatMetricsVO;
+import com.coooolfan.easyhome.pojo.vo.SessionStoreStatsVO;
+import com.coooolfan.easyhome.pojo.vo.VecRebuildProgressVO;
 import com.coooolfan.easyhome.response.Result;
 import com.coooolfan.easyhome.service.AdminService;
+import com.coooolfan.easyhome.service.ChatSessionStore;
+import com.coooolfan.easyhome.service.EmbeddingService;
+import com.coooolfan.easyhome.service.HouseCacheService;
+import com.coooolfan.easyhome.service.PromptMemoService;
 import com.coooolfan.easyhome.service.SysUserService;
+import com.coooolfan.easyhome.utils.ChatMetrics;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.security.auth.message.AuthException;
@@ -34,6 +43,16 @@ public class AdminController {
 
     private SysUserService sysUserService;
 
+    private EmbeddingService embeddingService;
+
+    private ChatMetrics chatMetrics;
+
+    private ChatSessionStore chatSessionStore;
+
+    private HouseCacheService houseCacheService;
+
+    private PromptMemoService promptMemoService;
+
     //    @SaCheckRole("admin_user")
     @PostMapping("/house_vec/setup")
     @Operation(summary = "初始化房屋向量数据")
@@ -41,6 +60,12 @@ public class AdminController {
         adminService.resetHouseVec();
     }
 
+    @GetMapping("/house_vec/progress")
+    @Operation(summary = "查询房屋向量重建进度")
+    public Result<VecRebuildProgressVO> getHouseVecProgress() {
+        return Result.ok(adminService.getHouseVecProgress());
+    }
+
     @PostMapping("/login")
     @Operation(summary = "管理员登录接口")
     public Result<String> doLogin(@Validated @RequestBody LoginDTO loginDTO) throws AuthException {
@@ -112,4 +137,34 @@ public class AdminController {
     public void setupCommonKnowledgeVec() {
         adminService.resetCommonKnowledgeVec();
     }
-}
\ No newline at end of file
+
+    @GetMapping("/embedding/cache/stats")
+    @Operation(summary = "查询向量缓存命中统计")
+    public Result<CacheStatsVO> getEmbeddingCacheStats() {
+        return Result.ok(embeddingService.getCacheStats());
+    }
+
+    @GetMapping("/chat/metrics")
+    @Operation(summary = "查询聊天链路各阶段耗时")
+    public Result<ChatMetricsVO> getChatMetrics() {
+        return Result.ok(chatMetrics.snapshot());
+    }
+
+    @GetMapping("/chat/sessions/stats")
+    @Operation(summary = "查询聊天会话存储统计")
+    public Result<SessionStoreStatsVO> getChatSessionStats() {
+        return Result.ok(chatSessionStore.getStats());
+    }
+
+    @GetMapping("/house/cache/stats")
+    @Operation(summary = "查询房源读缓存命中统计")
+    public Result<CacheStatsVO> getHouseCacheStats() {
+        return Result.ok(houseCacheService.getCacheStats());
+    }
+
+    @GetMapping("/llm/memo/stats")
+    @Operation(summary = "查询意图拦截与问题改写的调用缓存命中统计")
+    public Result<CacheStatsVO> getPromptMemoStats() {
+        return Result.ok(promptMemoService.getCacheStats());
+    }
+}
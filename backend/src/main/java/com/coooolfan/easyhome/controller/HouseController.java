@@ -4,21 +4,35 @@ import cn.dev33.satoken.annotation.SaCheckRole;
 import cn.dev33.satoken.stp.StpUtil;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.coooolfan.easyhome.service.HouseInfoService;
 import com.coooolfan.easyhome.pojo.dto.HouseDTO;
 import com.coooolfan.easyhome.pojo.entity.House;
 import com.coooolfan.easyhome.pojo.entity.HouseRecord;
 import com.coooolfan.easyhome.pojo.dto.HouseQueryDTO;
+import com.coooolfan.easyhome.pojo.vo.CursorPageVO;
+import com.coooolfan.easyhome.response.Code;
 import com.coooolfan.easyhome.response.Result;
+import com.coooolfan.easyhome.service.HouseCacheService;
 import com.coooolfan.easyhome.service.HouseRecordService;
 import com.coooolfan.easyhome.service.HouseService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.Resource;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -36,12 +50,18 @@ public class HouseController {
     @Resource
     private HouseService houseService;
 
+    @Resource
+    private HouseCacheService houseCacheService;
+
     @Resource
     private HouseInfoService kafkaProducerService;
 
     @Resource
     private HouseRecordService houseRecordService;
 
+    @Resource
+    private ObjectMapper objectMapper;
+
     @GetMapping("/page")
     @Operation(summary = "分页查询房屋信息")
     public Result<IPage<House>> getHousesPage(
@@ -50,10 +70,41 @@ public class HouseController {
             HouseQueryDTO queryVO) {
         log.info("current: {}, size: {}, vo: {}", current, size, queryVO);
         Page<House> page = new Page<>(current, size);
-        IPage<House> housePage = houseService.getByPage(page, queryVO);
+        IPage<House> housePage = houseCacheService.getByPage(page, queryVO);
         return Result.ok(housePage);
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "游标分页查询房屋信息，不返回总数")
+    public Result<CursorPageVO<House>> getHousesByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            HouseQueryDTO queryVO) {
+        log.info("cursor: {}, size: {}, vo: {}", cursor, size, queryVO);
+        return Result.ok(houseService.getByCursor(cursor, Math.clamp(size, 1, 100), queryVO));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "按关键词相关度分页检索房屋信息")
+    public Result<IPage<House>> searchHouses(
+            @RequestParam(defaultValue = "1") Integer current,
+            @RequestParam(defaultValue = "10") Integer size,
+            HouseQueryDTO queryVO) {
+        log.info("current: {}, size: {}, vo: {}", current, size, queryVO);
+        Page<House> page = new Page<>(current, size);
+        return Result.ok(houseService.searchByKeyword(page, queryVO));
+    }
+
+    @GetMapping("/vector-search")
+    @Operation(summary = "语义检索房屋信息，支持价格、面积、户型等筛选条件")
+    public Result<List<House>> vectorSearch(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") Integer limit,
+            HouseQueryDTO queryVO) {
+        log.info("query: {}, limit: {}, vo: {}", query, limit, queryVO);
+        return Result.ok(houseService.getHousesByVectorSearch(query, queryVO, limit));
+    }
+
     @PostMapping("/add")
     @Operation(summary = "添加房屋信息")
     public Result<String> addHouse(@RequestBody HouseDTO houseDTO) {
@@ -75,16 +126,67 @@ public class HouseController {
     @Operation(summary = "根据ID查询房屋信息")
     public Result<House> getHouseById(@PathVariable Long id) {
         log.info("查询房屋信息: {}", id);
-        House house = houseService.getById(id);
+        House house = houseCacheService.getById(id);
         return Result.ok(house);
     }
 
     @GetMapping("/published")
-    @Operation(summary = "查询全部已发布的房源信息")
-    public Result<List<House>> getPublishedHouses() {
-        log.info("查询全部已发布的房源信息");
-        List<House> houses = houseService.list();
-        return Result.ok(houses);
+    @Operation(summary = "查询全部已发布的房源信息，流式输出，Accept 为 application/x-ndjson 时按行输出")
+    public ResponseEntity<StreamingResponseBody> getPublishedHouses(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        boolean ndjson = accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+        String etag = "\"" + houseCacheService.getPublishedVersion() + (ndjson ? "-nd" : "") + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        log.info("导出全部已发布的房源信息, ndjson: {}", ndjson);
+        StreamingResponseBody body = out -> {
+            if (ndjson) {
+                writePublishedNdjson(out);
+            } else {
+                writePublishedJson(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * 按 Result 结构逐条写出房源，data 数组边读边写，不在内存中保留完整列表
+     */
+    private void writePublishedJson(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeObjectField("code", Code.SUCCESS);
+            generator.writeNullField("message");
+            generator.writeArrayFieldStart("data");
+            houseService.exportPublished(house -> writeHouse(generator, house));
+            generator.writeEndArray();
+            generator.writeNumberField("timestamp", System.currentTimeMillis());
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * 每行一条房源 JSON
+     */
+    private void writePublishedNdjson(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            houseService.exportPublished(house -> writeHouse(generator, house));
+            generator.writeRaw('\n');
+        }
+    }
+
+    /**
+     * 生成器与响应流的缓冲区写满后会自动刷新到客户端，无需逐条 flush
+     */
+    @SneakyThrows
+    private void writeHouse(JsonGenerator generator, House house) {
+        generator.writeObject(house);
     }
 
     @PostMapping("/publish")
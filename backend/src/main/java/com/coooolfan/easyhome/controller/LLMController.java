@@ -10,6 +10,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.noear.solon.ai.chat.ChatModel;
 import org.noear.solon.annotation.Produces;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 
@@ -39,11 +40,19 @@ public class LLMController {
         return resp;
     }
 
-    @PostMapping("stream")
-    @Operation(summary = "流式聊天接口")
-    public Flux<StreamChatResp> stream(@RequestBody LLMStreamDTO message) {
+    @PostMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "流式聊天接口，delta 事件携带增量内容，done 事件携带完整回答")
+    public Flux<ServerSentEvent<StreamChatResp>> stream(@RequestBody LLMStreamDTO message) {
         return llmService.stream(message);
     }
+
+    @GetMapping(value = "stream/{uuid}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "断线后续传本轮流式回答，Last-Event-ID 为已收到的最后一个事件ID")
+    public Flux<ServerSentEvent<StreamChatResp>> resume(
+            @PathVariable String uuid,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return llmService.resume(uuid, lastEventId);
+    }
 }
 
 
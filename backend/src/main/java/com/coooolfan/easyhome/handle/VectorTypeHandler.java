@@ -0,0 +1,78 @@
+package com.coooolfan.easyhome.handle;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedTypes;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * pgvector 向量类型处理器
+ * <p>
+ * 写入时将 float[] 直接交给驱动，按 real[] 的二进制格式发送，SQL 中通过 ::vector 转换，
+ * 避免每次拼接和解析上万字符的文本向量；读取时解析 vector 的文本输出。
+ *
+ * @author lima
+ * @version 0.0.1
+ **/
+@MappedTypes(float[].class)
+public class VectorTypeHandler extends BaseTypeHandler<float[]> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, float[] parameter, JdbcType jdbcType) throws SQLException {
+        ps.setObject(i, parameter);
+    }
+
+    @Override
+    public float[] getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return parse(rs.getString(columnName));
+    }
+
+    @Override
+    public float[] getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return parse(rs.getString(columnIndex));
+    }
+
+    @Override
+    public float[] getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return parse(cs.getString(columnIndex));
+    }
+
+    /**
+     * 解析 pgvector 的文本格式: [1,2,3]
+     *
+     * @param text 文本向量
+     * @return float数组
+     */
+    public static float[] parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        int start = text.indexOf('[') + 1;
+        int end = text.lastIndexOf(']');
+        if (end <= start) {
+            return new float[0];
+        }
+
+        int count = 1;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == ',') {
+                count++;
+            }
+        }
+
+        float[] result = new float[count];
+        int index = 0;
+        int tokenStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || text.charAt(i) == ',') {
+                result[index++] = Float.parseFloat(text.substring(tokenStart, i));
+                tokenStart = i + 1;
+            }
+        }
+        return result;
+    }
+}
@@ -20,14 +20,26 @@ public interface CommonKnowledgeVecMapper extends BaseMapper<CommonKnowledgeVec>
     void clearEmbeddings();
     
     /**
-     * 根据向量查询最相似的房源ID列表
-     * 
+     * 根据向量查询最相似的知识，按距离升序一次返回内容与距离，不回传向量本身
+     *
      * @param embedding 向量数据
      * @param limit 返回结果数量
-     * @return 房源ID列表
+     * @return 知识列表
      */
-    @Select("SELECT id FROM common_knowledge_vec ORDER BY embedding <-> #{embedding}::vector LIMIT #{limit}")
-    List<Long> findSimilarCommonKnowledge(@Param("embedding") String embedding, @Param("limit") int limit);
+    @Select("SELECT id, content, embedding <-> #{embedding}::vector AS distance FROM common_knowledge_vec " +
+            "ORDER BY distance LIMIT #{limit}")
+    List<CommonKnowledgeVec> selectSimilar(@Param("embedding") float[] embedding, @Param("limit") int limit);
+
+    /**
+     * 按三元组词相似度做关键词检索，走 content 的 GiST 索引 KNN 排序
+     *
+     * @param query 查询文本
+     * @param limit 返回结果数量
+     * @return 知识列表
+     */
+    @Select("SELECT id, content, content <->> #{query} AS distance FROM common_knowledge_vec " +
+            "ORDER BY content <->> #{query} LIMIT #{limit}")
+    List<CommonKnowledgeVec> selectByKeyword(@Param("query") String query, @Param("limit") int limit);
 
     /**
      * 根据知识库更新向量数据
@@ -35,6 +47,6 @@ public interface CommonKnowledgeVecMapper extends BaseMapper<CommonKnowledgeVec>
      * @param embedding 向量数据
      */
     @Update("UPDATE common_knowledge_vec SET embedding = #{embedding}::vector WHERE id = #{id}")
-    void updateHouseVec(@Param("id") Long id, @Param("embedding") String embedding);
+    void updateHouseVec(@Param("id") Long id, @Param("embedding") float[] embedding);
 
 }
\ No newline at end of file
@@ -2,7 +2,17 @@ package com.coooolfan.easyhome.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 
 import com.coooolfan.easyhome.pojo.entity.House;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.util.List;
 
 /**
  * @author lima
@@ -11,4 +21,64 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface HouseMapper
         extends BaseMapper<House> {
+
+    /**
+     * 按向量相似度返回房源及其距离(填入 distance)，筛选条件直接拼接到联表查询中，按距离升序一次返回
+     * <p>
+     * 迭代扫描为 relaxed_order 时索引返回的顺序可能略有偏差，外层再按距离排序一次
+     *
+     * @param embedding 查询向量
+     * @param wrapper   只含筛选条件的查询条件，列名不带表前缀
+     * @param limit     返回结果数量
+     */
+    @Select("WITH ranked AS MATERIALIZED (" +
+            "SELECT h.*, v.embedding <-> #{embedding}::vector AS distance " +
+            "FROM houses_vec v JOIN houses h ON h.id = v.house_id ${ew.customSqlSegment} " +
+            "ORDER BY distance LIMIT #{limit}) " +
+            "SELECT * FROM ranked ORDER BY distance")
+    List<House> selectSimilar(@Param("embedding") float[] embedding,
+                              @Param(Constants.WRAPPER) Wrapper<House> wrapper,
+                              @Param("limit") int limit);
+
+    /**
+     * 关键词排序分页检索，wrapper 中需包含 search_doc 的词相似度过滤条件，按词相似度距离升序
+     *
+     * @param page    分页参数
+     * @param keyword 关键词
+     * @param wrapper 筛选条件，列名不带表前缀
+     */
+    @Select("SELECT *, search_doc <->> #{keyword} AS distance FROM houses ${ew.customSqlSegment} " +
+            "ORDER BY search_doc <->> #{keyword}")
+    IPage<House> searchPage(IPage<House> page, @Param("keyword") String keyword,
+                            @Param(Constants.WRAPPER) Wrapper<House> wrapper);
+
+    /**
+     * 按三元组词相似度做关键词检索，走 search_doc 的 GiST 索引 KNN 排序，距离 = 1 - word_similarity(query, search_doc)
+     *
+     * @param query 查询文本
+     * @param limit 返回结果数量
+     */
+    @Select("SELECT *, search_doc <->> #{query} AS distance FROM houses " +
+            "ORDER BY search_doc <->> #{query} LIMIT #{limit}")
+    List<House> selectByKeyword(@Param("query") String query, @Param("limit") int limit);
+
+    /**
+     * 按主键顺序流式扫描全部房源，需在事务中使用，PostgreSQL 只有关闭自动提交时 fetchSize 才会分批拉取
+     */
+    @Select("SELECT * FROM houses ORDER BY id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 500)
+    Cursor<House> scanAll();
+
+    /**
+     * 房源表版本，由行数与最近更新时间(微秒)组成，删除会改变行数，新增与修改会刷新 updated_at
+     */
+    @Select("SELECT COUNT(*) || '-' || COALESCE(FLOOR(EXTRACT(EPOCH FROM MAX(updated_at)) * 1000000)::bigint, 0) " +
+            "FROM houses")
+    String selectVersion();
+
+    /**
+     * 设置仅在当前事务内生效的查询参数，如 hnsw.ef_search、pg_trgm.word_similarity_threshold，需在事务中调用
+     */
+    @Select("SELECT set_config(#{name}, #{value}, true)")
+    String setLocalConfig(@Param("name") String name, @Param("value") String value);
 }
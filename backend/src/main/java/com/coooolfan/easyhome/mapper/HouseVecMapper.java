@@ -1,10 +1,15 @@
 package com.coooolfan.easyhome.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.coooolfan.easyhome.pojo.entity.HouseVec;
 import org.apache.ibatis.annotations.*;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * 房屋向量Mapper
@@ -18,7 +23,7 @@ public interface HouseVecMapper extends BaseMapper<HouseVec> {
      * @param embedding 向量数据
      */
     @Insert("INSERT INTO houses_vec(house_id, embedding) VALUES(#{houseId}, #{embedding}::vector)")
-    void insertHouseVec(@Param("houseId") Long houseId, @Param("embedding") String embedding);
+    void insertHouseVec(@Param("houseId") Long houseId, @Param("embedding") float[] embedding);
     
     /**
      * 清空向量表
@@ -27,23 +32,113 @@ public interface HouseVecMapper extends BaseMapper<HouseVec> {
     void clearAll();
     
     /**
-     * 根据向量查询最相似的房源ID列表
-     * 
+     * 根据房屋ID更新向量数据
+     * @param houseId 房屋ID
      * @param embedding 向量数据
-     * @param limit 返回结果数量
-     * @return 房源ID列表
      */
-    @Select("SELECT house_id FROM houses_vec ORDER BY embedding <-> #{embedding}::vector LIMIT #{limit}")
-    List<Long> findSimilarHouses(@Param("embedding") String embedding, @Param("limit") int limit);
+    @Update("UPDATE houses_vec SET embedding = #{embedding}::vector WHERE house_id = #{houseId}")
+    void updateHouseVec(@Param("houseId") Long houseId, @Param("embedding") float[] embedding);
 
     /**
-     * 根据房屋ID更新向量数据
+     * 写入或覆盖房源向量，房源已被删除时不写入
+     *
      * @param houseId 房屋ID
      * @param embedding 向量数据
+     * @param contentHash 房源指纹
      */
-    @Update("UPDATE houses_vec SET embedding = #{embedding}::vector WHERE house_id = #{houseId}")
-    void updateHouseVec(@Param("houseId") Long houseId, @Param("embedding") String embedding);
+    @Insert("INSERT INTO houses_vec(house_id, embedding, content_hash) " +
+            "SELECT #{houseId}, #{embedding}::vector, #{contentHash} WHERE EXISTS (SELECT 1 FROM houses WHERE id = #{houseId}) " +
+            "ON CONFLICT (house_id) DO UPDATE SET embedding = EXCLUDED.embedding, content_hash = EXCLUDED.content_hash")
+    void upsertHouseVec(@Param("houseId") Long houseId, @Param("embedding") float[] embedding,
+                        @Param("contentHash") String contentHash);
+
+    /**
+     * 查询线上向量的房源指纹，未记录指纹的向量不返回
+     *
+     * @param houseIds 房屋ID
+     * @return 房屋ID -> 指纹
+     */
+    default Map<Long, String> selectContentHashes(Collection<Long> houseIds) {
+        if (houseIds.isEmpty()) {
+            return Map.of();
+        }
+        return selectList(new LambdaQueryWrapper<HouseVec>()
+                .select(HouseVec::getHouseId, HouseVec::getContentHash)
+                .in(HouseVec::getHouseId, houseIds)
+                .isNotNull(HouseVec::getContentHash))
+                .stream()
+                .collect(Collectors.toMap(HouseVec::getHouseId, HouseVec::getContentHash, (a, b) -> a));
+    }
 
     @Delete("DELETE FROM houses_vec WHERE house_id = #{houseId}")
     void deleteByHouseId(Long houseId);
+
+    /**
+     * 重建影子表，结构与 houses_vec 一致，索引在数据写入完成后再创建
+     */
+    @Update("DROP TABLE IF EXISTS houses_vec_shadow")
+    void dropShadow();
+
+    @Update("CREATE TABLE houses_vec_shadow (id BIGSERIAL PRIMARY KEY, house_id BIGINT NOT NULL UNIQUE, embedding vector(1536) NOT NULL, content_hash TEXT)")
+    void createShadow();
+
+    /**
+     * 向影子表插入向量数据
+     *
+     * @param houseId 房屋ID
+     * @param embedding 向量数据
+     * @param contentHash 房源指纹
+     */
+    @Insert("INSERT INTO houses_vec_shadow(house_id, embedding, content_hash) VALUES(#{houseId}, #{embedding}::vector, #{contentHash})")
+    void insertShadowHouseVec(@Param("houseId") Long houseId, @Param("embedding") float[] embedding,
+                              @Param("contentHash") String contentHash);
+
+    /**
+     * 指纹未变化的房源直接复用线上表中的向量
+     *
+     * @param houseId 房屋ID
+     */
+    @Insert("INSERT INTO houses_vec_shadow(house_id, embedding, content_hash) " +
+            "SELECT house_id, embedding, content_hash FROM houses_vec WHERE house_id = #{houseId}")
+    void copyLiveToShadow(@Param("houseId") Long houseId);
+
+    @Update("CREATE INDEX ON houses_vec_shadow USING hnsw(embedding vector_l2_ops)")
+    void createShadowIndex();
+
+    /**
+     * 切换期间阻塞对线上表的写入，查询会在切换完成后直接落到新表
+     */
+    @Update("LOCK TABLE houses_vec IN ACCESS EXCLUSIVE MODE")
+    void lockLive();
+
+    /**
+     * 重建开始后被修改过的房源以线上表为准
+     *
+     * @param since 重建开始时间
+     */
+    @Delete("DELETE FROM houses_vec_shadow s USING houses h WHERE h.id = s.house_id AND h.updated_at > #{since}")
+    int deleteShadowUpdatedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * 补齐重建期间线上表新增的向量
+     */
+    @Insert("INSERT INTO houses_vec_shadow(house_id, embedding, content_hash) " +
+            "SELECT v.house_id, v.embedding, v.content_hash FROM houses_vec v " +
+            "WHERE NOT EXISTS (SELECT 1 FROM houses_vec_shadow s WHERE s.house_id = v.house_id)")
+    int mergeLiveIntoShadow();
+
+    /**
+     * 剔除重建期间已被删除的房源
+     */
+    @Delete("DELETE FROM houses_vec_shadow s WHERE NOT EXISTS (SELECT 1 FROM houses h WHERE h.id = s.house_id)")
+    int pruneShadow();
+
+    @Update("ALTER TABLE houses_vec RENAME TO houses_vec_old")
+    void retireLive();
+
+    @Update("ALTER TABLE houses_vec_shadow RENAME TO houses_vec")
+    void promoteShadow();
+
+    @Update("DROP TABLE houses_vec_old")
+    void dropRetired();
 }
\ No newline at end of file
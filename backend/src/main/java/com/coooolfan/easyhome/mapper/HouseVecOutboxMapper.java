@@ -0,0 +1,59 @@
+package com.coooolfan.easyhome.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.coooolfan.easyhome.pojo.entity.HouseVecOutbox;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * 待向量化房源Mapper
+ */
+@Mapper
+public interface HouseVecOutboxMapper extends BaseMapper<HouseVecOutbox> {
+    /**
+     * 登记房源待向量化，需与房源写入在同一事务中调用；已存在时递增版本并重置重试状态
+     *
+     * @param houseId 房屋ID
+     */
+    @Insert("INSERT INTO house_vec_outbox(house_id) VALUES(#{houseId}) " +
+            "ON CONFLICT (house_id) DO UPDATE SET version = house_vec_outbox.version + 1, " +
+            "attempts = 0, next_attempt_at = CURRENT_TIMESTAMP, last_error = NULL")
+    void enqueue(@Param("houseId") Long houseId);
+
+    /**
+     * 认领到期记录并加租约，SKIP LOCKED 保证多节点不会认领同一条记录
+     *
+     * @param limit        认领条数
+     * @param leaseSeconds 租约秒数
+     */
+    @Select("UPDATE house_vec_outbox SET locked_until = CURRENT_TIMESTAMP + make_interval(secs => #{leaseSeconds}) " +
+            "WHERE house_id IN (SELECT house_id FROM house_vec_outbox " +
+            "WHERE next_attempt_at <= CURRENT_TIMESTAMP AND (locked_until IS NULL OR locked_until < CURRENT_TIMESTAMP) " +
+            "ORDER BY next_attempt_at LIMIT #{limit} FOR UPDATE SKIP LOCKED) " +
+            "RETURNING *")
+    List<HouseVecOutbox> claim(@Param("limit") int limit, @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * 完成处理，处理期间被重新登记的记录版本已变化，不会被删除
+     */
+    @Delete("DELETE FROM house_vec_outbox WHERE house_id = #{houseId} AND version = #{version}")
+    int complete(@Param("houseId") Long houseId, @Param("version") Long version);
+
+    /**
+     * 释放租约，用于处理期间被重新登记的记录，使其可被立即再次认领
+     */
+    @Update("UPDATE house_vec_outbox SET locked_until = NULL WHERE house_id = #{houseId}")
+    void release(@Param("houseId") Long houseId);
+
+    /**
+     * 记录失败并按退避时间推迟下次重试
+     *
+     * @param delaySeconds 距下次重试的秒数
+     */
+    @Update("UPDATE house_vec_outbox SET attempts = attempts + 1, locked_until = NULL, last_error = #{error}, " +
+            "next_attempt_at = CURRENT_TIMESTAMP + make_interval(secs => #{delaySeconds}) " +
+            "WHERE house_id = #{houseId} AND version = #{version}")
+    int fail(@Param("houseId") Long houseId, @Param("version") Long version,
+             @Param("error") String error, @Param("delaySeconds") long delaySeconds);
+}
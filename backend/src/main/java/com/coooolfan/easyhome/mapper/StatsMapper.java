@@ -0,0 +1,30 @@
+package com.coooolfan.easyhome.mapper;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 表统计信息，用于估算分页总数
+ */
+@Mapper
+public interface StatsMapper {
+    /**
+     * 表的估算行数，由 ANALYZE / autovacuum 维护，从未分析过的表返回 -1
+     *
+     * @param table 表名
+     */
+    @Select("SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(#{table})")
+    Long selectReltuples(@Param("table") String table);
+
+    /**
+     * 按筛选条件生成执行计划，返回 JSON 格式的计划，顶层节点的 Plan Rows 即预估行数
+     *
+     * @param table   表名，只允许传入代码中的常量
+     * @param wrapper 只含筛选条件的查询条件
+     */
+    @Select("EXPLAIN (FORMAT JSON) SELECT 1 FROM ${table} ${ew.customSqlSegment}")
+    String explain(@Param("table") String table, @Param(Constants.WRAPPER) Wrapper<?> wrapper);
+}
@@ -0,0 +1,34 @@
+package com.coooolfan.easyhome.message;
+
+import com.coooolfan.easyhome.service.HouseCacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 接收其他节点广播的房源缓存失效消息，消息格式为 "房源ID:列表代数"，房源ID可为空
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class HouseCacheInvalidationListener implements MessageListener {
+
+    private final HouseCacheService houseCacheService;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            int split = body.lastIndexOf(':');
+            String id = body.substring(0, split);
+            long generation = Long.parseLong(body.substring(split + 1));
+            houseCacheService.evictLocal(id.isEmpty() ? null : Long.valueOf(id), generation);
+        } catch (RuntimeException e) {
+            log.warn("无法解析房源缓存失效消息: {}", body);
+        }
+    }
+}
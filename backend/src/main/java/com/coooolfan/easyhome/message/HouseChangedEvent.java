@@ -0,0 +1,9 @@
+package com.coooolfan.easyhome.message;
+
+/**
+ * 房源数据变更事件，事务提交后用于失效房源缓存
+ *
+ * @param houseId 变更的房源ID
+ */
+public record HouseChangedEvent(Long houseId) {
+}
@@ -20,4 +20,8 @@ public class HouseQueryDTO {
     private Integer minYear;
     private Integer maxYear;
     private String sortBy;
+    /**
+     * 排序检索关键词，匹配标题、地址与标签，仅 /search 使用
+     */
+    private String keyword;
 }
@@ -1,21 +1,34 @@
 package com.coooolfan.easyhome.pojo.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.noear.solon.ai.chat.message.AssistantMessage;
 import org.noear.solon.ai.chat.message.ChatMessage;
 
+/**
+ * 流式聊天事件，回答过程中只携带增量 content，结束时发送一次携带完整 aggregationMessage 的事件
+ */
 @Data
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class StreamChatResp {
     String content;
     String role;
     boolean finished;
     String aggregationMessage;
 
+    public static StreamChatResp delta(String content) {
+        return new StreamChatResp(content, "Assistant", false, null);
+    }
+
+    public static StreamChatResp done(String aggregationMessage) {
+        return new StreamChatResp(null, "Assistant", true, aggregationMessage);
+    }
+
     public ChatMessage toChatMessage() {
         return new AssistantMessage(
                 this.content
         );
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.coooolfan.easyhome.handle.VectorTypeHandler;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,7 +17,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@TableName("common_knowledge_vec")
+@TableName(value = "common_knowledge_vec", autoResultMap = true)
 public class CommonKnowledgeVec {
     @TableId(type = IdType.AUTO)
     private Long id;
@@ -24,6 +25,12 @@ public class CommonKnowledgeVec {
     @TableField("content")
     private String content;
 
-    @TableField("embedding")
+    @TableField(value = "embedding", typeHandler = VectorTypeHandler.class)
     private float[] embedding;
+
+    /**
+     * 向量检索时与查询向量的距离，非表字段
+     */
+    @TableField(exist = false)
+    private Double distance;
 } 
\ No newline at end of file
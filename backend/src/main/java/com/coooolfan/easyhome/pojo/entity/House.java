@@ -2,10 +2,12 @@ package com.coooolfan.easyhome.pojo.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
 import com.coooolfan.easyhome.handle.StringListTypeHandler;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -51,5 +53,13 @@ public class House {
     private List<String> tag;
 
     private Long userId;
+
+    /**
+     * 向量检索时与查询向量的距离，非表字段，不参与 toString 以免影响向量化文本
+     */
+    @TableField(exist = false)
+    @ToString.Exclude
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double distance;
 }
 
@@ -1,6 +1,7 @@
 package com.coooolfan.easyhome.pojo.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
+import com.coooolfan.easyhome.handle.VectorTypeHandler;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,7 +14,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@TableName("houses_vec")
+@TableName(value = "houses_vec", autoResultMap = true)
 public class HouseVec {
     @TableId(type = IdType.AUTO)
     private Long id;
@@ -21,6 +22,12 @@ public class HouseVec {
     @TableField("house_id")
     private Long houseId;
 
-    @TableField("embedding")
+    @TableField(value = "embedding", typeHandler = VectorTypeHandler.class)
     private float[] embedding;
+
+    /**
+     * 生成该向量时的房源指纹，见 EasyHomeUtils.embeddingFingerprint
+     */
+    @TableField("content_hash")
+    private String contentHash;
 } 
\ No newline at end of file
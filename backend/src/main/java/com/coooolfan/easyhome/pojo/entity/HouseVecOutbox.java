@@ -0,0 +1,42 @@
+package com.coooolfan.easyhome.pojo.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待向量化房源，对应house_vec_outbox表
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("house_vec_outbox")
+public class HouseVecOutbox {
+    @TableId(type = IdType.INPUT)
+    private Long houseId;
+
+    /**
+     * 每次重新登记加一，处理完成时只删除版本未变的记录
+     */
+    private Long version;
+
+    private Integer attempts;
+
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * 认领租约到期时间，到期未完成的记录可被重新认领
+     */
+    private LocalDateTime lockedUntil;
+
+    private String lastError;
+
+    private LocalDateTime createdAt;
+}
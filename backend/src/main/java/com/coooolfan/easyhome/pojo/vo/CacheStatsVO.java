@@ -0,0 +1,46 @@
+package com.coooolfan.easyhome.pojo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 两级缓存命中统计
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CacheStatsVO {
+    /**
+     * 本地缓存命中次数
+     */
+    private long localHits;
+
+    /**
+     * Redis 命中次数
+     */
+    private long redisHits;
+
+    /**
+     * 两级均未命中的次数
+     */
+    private long misses;
+
+    /**
+     * 本地缓存当前条数
+     */
+    private long localSize;
+
+    /**
+     * 总命中率
+     */
+    private double hitRate;
+
+    public static CacheStatsVO of(long localHits, long redisHits, long misses, long localSize) {
+        long total = localHits + redisHits + misses;
+        return new CacheStatsVO(localHits, redisHits, misses, localSize,
+                total == 0 ? 0 : (double) (localHits + redisHits) / total);
+    }
+}
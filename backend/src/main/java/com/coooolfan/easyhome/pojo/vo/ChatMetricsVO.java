@@ -0,0 +1,25 @@
+package com.coooolfan.easyhome.pojo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 聊天链路指标
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChatMetricsVO {
+    /**
+     * 各阶段耗时
+     */
+    private Map<String, StageStatsVO> stages;
+
+    /**
+     * 事件计数
+     */
+    private Map<String, Long> counters;
+}
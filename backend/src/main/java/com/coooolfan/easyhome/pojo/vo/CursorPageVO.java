@@ -0,0 +1,24 @@
+package com.coooolfan.easyhome.pojo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果，不统计总数
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageVO<T> {
+    private List<T> records;
+
+    /**
+     * 下一页游标，没有更多数据时为 null
+     */
+    private String nextCursor;
+
+    private boolean hasMore;
+}
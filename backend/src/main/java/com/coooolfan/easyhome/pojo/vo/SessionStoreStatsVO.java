@@ -0,0 +1,38 @@
+package com.coooolfan.easyhome.pojo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 聊天会话存储统计
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SessionStoreStatsVO {
+    /**
+     * 存储实现：local / redis
+     */
+    private String store;
+
+    /**
+     * 当前会话数
+     */
+    private long size;
+
+    /**
+     * 因超出会话上限被淘汰的会话数
+     */
+    private long evictedBySize;
+
+    /**
+     * 因空闲超时被淘汰的会话数
+     */
+    private long evictedByIdle;
+
+    /**
+     * 因超出单会话条数或 token 上限被丢弃的消息数
+     */
+    private long trimmedMessages;
+}
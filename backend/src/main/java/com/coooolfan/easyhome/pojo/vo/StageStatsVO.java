@@ -0,0 +1,28 @@
+package com.coooolfan.easyhome.pojo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个阶段的耗时统计
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StageStatsVO {
+    /**
+     * 记录次数
+     */
+    private long count;
+
+    /**
+     * 平均耗时(毫秒)
+     */
+    private double avgMillis;
+
+    /**
+     * 最大耗时(毫秒)
+     */
+    private double maxMillis;
+}
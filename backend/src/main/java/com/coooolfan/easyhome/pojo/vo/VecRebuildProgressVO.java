@@ -0,0 +1,56 @@
+package com.coooolfan.easyhome.pojo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 向量重建进度
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class VecRebuildProgressVO {
+    /**
+     * 是否正在重建
+     */
+    private boolean running;
+
+    /**
+     * 需要处理的总条数
+     */
+    private long total;
+
+    /**
+     * 已写入的条数
+     */
+    private long embedded;
+
+    /**
+     * 指纹未变化、直接复用原向量的条数
+     */
+    private long reused;
+
+    /**
+     * 失败的条数
+     */
+    private long failed;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    /**
+     * 已耗时(毫秒)
+     */
+    private long elapsedMillis;
+
+    /**
+     * 吞吐量(条/秒)
+     */
+    private double throughput;
+}
@@ -1,7 +1,11 @@
 package com.coooolfan.easyhome.service;
 
+import com.coooolfan.easyhome.pojo.vo.VecRebuildProgressVO;
+
 public interface AdminService {
     void resetHouseVec();
 
+    VecRebuildProgressVO getHouseVecProgress();
+
     void resetCommonKnowledgeVec();
 }
@@ -0,0 +1,45 @@
+package com.coooolfan.easyhome.service;
+
+import com.coooolfan.easyhome.utils.ChatSession;
+import org.noear.solon.ai.chat.message.ChatMessage;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 聊天历史压缩：token 预算内的最近消息窗口 + 滑出窗口部分的滚动摘要
+ */
+public interface ChatHistoryService {
+    /**
+     * 发送给聊天模型的历史：系统消息、摘要与预算内的最近消息
+     */
+    ArrayList<ChatMessage> window(ChatSession chatSession);
+
+    /**
+     * 意图拦截与问题改写使用的历史文本，没有历史时返回 null
+     */
+    String promptHistory(ChatSession chatSession);
+
+    /**
+     * 一次摘要合并的结果
+     *
+     * @param folded   被合并进摘要的消息
+     * @param previous 生成摘要时会话已有的摘要
+     * @param summary  新摘要
+     */
+    record HistoryFold(List<ChatMessage> folded, String previous, String summary) {
+    }
+
+    /**
+     * 一轮对话结束后调用，为滑出窗口的消息生成新摘要，不修改会话；条数不足或摘要失败时为空
+     */
+    Mono<HistoryFold> summarize(ChatSession chatSession);
+
+    /**
+     * 把摘要写回会话：被合并的消息仍在会话开头(系统消息之后)且摘要未被其他合并更新时，移除这些消息并更新摘要
+     *
+     * @return 是否已写回，会话在摘要生成期间发生变化时返回 false，本次结果作废
+     */
+    boolean applyFold(ChatSession chatSession, HistoryFold fold);
+}
@@ -0,0 +1,34 @@
+package com.coooolfan.easyhome.service;
+
+import com.coooolfan.easyhome.pojo.vo.SessionStoreStatsVO;
+import com.coooolfan.easyhome.utils.ChatSession;
+
+/**
+ * 聊天会话存储，由 llm.session.store 选择本地或 Redis 实现
+ * <p>
+ * 会话按空闲时间过期，总数超过上限时淘汰最久未访问的会话，保存时按单会话上限裁剪聊天记录
+ */
+public interface ChatSessionStore {
+    /**
+     * @return 会话，不存在或已过期时返回 null
+     */
+    ChatSession get(String uuid);
+
+    /**
+     * 保存会话并刷新空闲时间，聊天记录被修改后需要再次保存
+     */
+    void save(ChatSession chatSession);
+
+    void remove(String uuid);
+
+    /**
+     * 占用会话的当前轮次，同一会话同一时刻只允许一轮对话读写聊天记录
+     *
+     * @return 会话已有进行中的轮次时返回 false
+     */
+    boolean tryLockTurn(String uuid);
+
+    void unlockTurn(String uuid);
+
+    SessionStoreStatsVO getStats();
+}
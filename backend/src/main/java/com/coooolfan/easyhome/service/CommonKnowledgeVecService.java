@@ -8,6 +8,13 @@ import java.util.List;
 public interface CommonKnowledgeVecService {
     List<String> getCommonKnowledgeByVectorSearch(String query, int limit);
 
+    List<String> getCommonKnowledgeByEmbedding(float[] embedding, int limit);
+
+    /**
+     * 向量检索与关键词检索的结果按倒数排名融合
+     */
+    List<String> getCommonKnowledgeByHybridSearch(String query, float[] embedding, int limit);
+
     String getCommonKnowledgeDescByVectorSearch(ChatMessage message, int limit);
 
     String getCommonKnowledgeDescByVectorSearch(ArrayList<ChatMessage> historyMessage, ChatMessage question, int limit);
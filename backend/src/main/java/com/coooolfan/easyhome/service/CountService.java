@@ -0,0 +1,19 @@
+package com.coooolfan.easyhome.service;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.coooolfan.easyhome.constant.CountMode;
+
+/**
+ * 分页总数统计，结果按表与筛选条件短时缓存
+ */
+public interface CountService {
+    /**
+     * @param mode    统计方式
+     * @param table   表名
+     * @param mapper  精确统计使用的 Mapper
+     * @param wrapper 只含筛选条件、不含排序的查询条件
+     * @return 总数，NONE 时返回 0
+     */
+    <T> long count(CountMode mode, String table, BaseMapper<T> mapper, Wrapper<T> wrapper);
+}
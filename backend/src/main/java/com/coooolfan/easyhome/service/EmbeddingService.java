@@ -0,0 +1,25 @@
+package com.coooolfan.easyhome.service;
+
+import com.coooolfan.easyhome.pojo.vo.CacheStatsVO;
+
+import java.util.List;
+
+public interface EmbeddingService {
+    /**
+     * 查询文本向量化，结果经过本地与 Redis 两级缓存
+     *
+     * @param text 查询文本
+     * @return 截断后的向量，每次返回新的副本
+     */
+    float[] embed(String text);
+
+    /**
+     * 批量向量化，先查两级缓存，未命中的文本合并为一次远程调用
+     *
+     * @param texts 查询文本
+     * @return 与 texts 顺序一致的向量
+     */
+    List<float[]> embedAll(List<String> texts);
+
+    CacheStatsVO getCacheStats();
+}
@@ -0,0 +1,34 @@
+package com.coooolfan.easyhome.service;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.coooolfan.easyhome.pojo.dto.HouseQueryDTO;
+import com.coooolfan.easyhome.pojo.entity.House;
+import com.coooolfan.easyhome.pojo.vo.CacheStatsVO;
+
+/**
+ * 房源读缓存：本地缓存 + Redis 两级
+ * <p>
+ * 详情按房源ID缓存，分页按列表代数缓存。房源写入后由 {@link com.coooolfan.easyhome.message.HouseChangedEvent}
+ * 在事务提交后失效对应详情并递增列表代数，再经 Redis 发布订阅通知其他节点
+ */
+public interface HouseCacheService {
+    House getById(Long id);
+
+    IPage<House> getByPage(Page<House> page, HouseQueryDTO queryVO);
+
+    /**
+     * 处理其他节点广播的失效消息，只清理本地缓存
+     *
+     * @param houseId    变更的房源ID
+     * @param generation 变更后的列表代数
+     */
+    void evictLocal(Long houseId, long generation);
+
+    /**
+     * 全部房源的版本，用作导出接口的 ETag；取自 Redis 中的列表代数，不扫描房源表，Redis 不可用时退回按表统计
+     */
+    String getPublishedVersion();
+
+    CacheStatsVO getCacheStats();
+}
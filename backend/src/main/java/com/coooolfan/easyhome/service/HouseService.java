@@ -6,10 +6,12 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.coooolfan.easyhome.pojo.dto.HouseDTO;
 import com.coooolfan.easyhome.pojo.entity.House;
 import com.coooolfan.easyhome.pojo.dto.HouseQueryDTO;
+import com.coooolfan.easyhome.pojo.vo.CursorPageVO;
 import org.noear.solon.ai.chat.message.ChatMessage;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author lima
@@ -18,12 +20,55 @@ import java.util.List;
 public interface HouseService extends IService<House> {
     IPage<House> getByPage(Page<House> page, HouseQueryDTO queryVO);
 
+    /**
+     * 按关键词与标题、地址、标签的词相似度排序分页，其余筛选条件同 {@link #getByPage}，忽略 sortBy
+     */
+    IPage<House> searchByKeyword(Page<House> page, HouseQueryDTO queryVO);
+
+    /**
+     * 游标分页：按 sortBy 对应的 (排序列, id) 定位下一页，不使用 OFFSET，不统计总数
+     *
+     * @param cursor 上一页返回的游标，第一页为空
+     * @param size   每页条数
+     */
+    CursorPageVO<House> getByCursor(String cursor, int size, HouseQueryDTO queryVO);
+
     List<House> getHousesByVectorSearch(String query, int limit);
 
+    List<House> getHousesByEmbedding(float[] embedding, int limit);
+
+    /**
+     * 向量相似度检索并应用结构化筛选条件，结果按相似度排序，忽略 sortBy
+     */
+    List<House> getHousesByEmbedding(float[] embedding, HouseQueryDTO queryVO, int limit);
+
+    List<House> getHousesByVectorSearch(String query, HouseQueryDTO queryVO, int limit);
+
+    /**
+     * 向量检索与关键词检索的结果按倒数排名融合
+     *
+     * @param query     用于关键词检索的查询文本
+     * @param embedding query 的向量
+     */
+    List<House> getHousesByHybridSearch(String query, float[] embedding, int limit);
+
     String getHousesDescByVectorSearch(ArrayList<ChatMessage> historyMessage, ChatMessage question, int limit);
 
     String getHousesDescByVectorSearch(ChatMessage chatMessage, int limit);
 
+    /**
+     * 按主键顺序逐条回调全部房源，底层使用游标分批读取，内存占用与房源总数无关
+     *
+     * @param consumer 每条房源的处理逻辑，抛出异常时中止扫描
+     */
+    void exportPublished(Consumer<House> consumer);
+
+    /**
+     * 已发布房源的版本号，按行数与最近更新时间统计，需扫描全表；
+     * 导出接口优先使用 {@link HouseCacheService#getPublishedVersion()}，仅在其不可用时回退到此处
+     */
+    String getPublishedVersion();
+
     void addHouseWithVec(HouseDTO houseDTO);
 
     void removeWithVecById(Long id);
@@ -0,0 +1,13 @@
+package com.coooolfan.easyhome.service;
+
+/**
+ * 房源向量异步同步：消费 house_vec_outbox 中登记的房源，批量向量化后回写 houses_vec
+ */
+public interface HouseVecSyncService {
+    /**
+     * 处理当前所有到期的待向量化记录
+     *
+     * @return 本次成功写入向量的房源数
+     */
+    int drain();
+}
@@ -0,0 +1,16 @@
+package com.coooolfan.easyhome.service;
+
+import com.coooolfan.easyhome.constant.ChatIntent;
+import reactor.core.publisher.Mono;
+
+public interface IntentService {
+    /**
+     * 判断用户问题的意图
+     * <p>
+     * 先用问题向量与标注样例做本地相似度分类，得分落在不确定区间内时再调用模型判断
+     *
+     * @param historyPrompt 压缩后的历史文本，首轮对话为 null
+     * @param question      用户本轮问题
+     */
+    Mono<ChatIntent> classify(String historyPrompt, String question);
+}
@@ -2,8 +2,17 @@ package com.coooolfan.easyhome.service;
 
 import com.coooolfan.easyhome.pojo.dto.LLMStreamDTO;
 import com.coooolfan.easyhome.pojo.dto.StreamChatResp;
+import org.springframework.http.codec.ServerSentEvent;
 import reactor.core.publisher.Flux;
 
 public interface LLMService {
-    Flux<StreamChatResp> stream(LLMStreamDTO message);
+    Flux<ServerSentEvent<StreamChatResp>> stream(LLMStreamDTO message);
+
+    /**
+     * 断线重连后从指定事件之后继续接收本轮回答，不会重新调用模型
+     *
+     * @param uuid        会话ID
+     * @param lastEventId 客户端已收到的最后一个事件ID
+     */
+    Flux<ServerSentEvent<StreamChatResp>> resume(String uuid, String lastEventId);
 }
@@ -0,0 +1,24 @@
+package com.coooolfan.easyhome.service;
+
+import com.coooolfan.easyhome.pojo.vo.CacheStatsVO;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * 确定性模型子调用(意图拦截、问题改写)的结果缓存
+ * <p>
+ * 结果只取决于提示词，按模型名与提示词摘要缓存在本地(容量 + TTL 淘汰)与 Redis 中，
+ * 同一进程内相同提示词的并发调用只会发起一次模型请求
+ */
+public interface PromptMemoService {
+    /**
+     * @param scope  调用类别，如 intercept、rewrite，不同类别互不命中
+     * @param prompt 完整提示词
+     * @param call   未命中时发起的模型调用
+     * @return 模型回复
+     */
+    Mono<String> memoize(String scope, String prompt, Supplier<Mono<String>> call);
+
+    CacheStatsVO getCacheStats();
+}
@@ -0,0 +1,20 @@
+package com.coooolfan.easyhome.service;
+
+import org.noear.solon.ai.chat.message.ChatMessage;
+import reactor.core.publisher.Mono;
+
+public interface RagService {
+    /**
+     * 为一轮对话检索房源与常识上下文
+     * <p>
+     * 有历史记录时先改写一次问题，向量化一次，再并发检索房源与常识。
+     * 改写走模型的流式接口并经 {@link PromptMemoService} 缓存，向量化与数据库查询在检索调度器上执行，
+     * 取消订阅即取消检索，进行中的改写会继续完成并写入缓存
+     *
+     * @param historyPrompt  压缩后的历史文本，见 {@link ChatHistoryService#promptHistory}，首轮对话为 null
+     * @param question       用户本轮问题
+     * @param limit          每类检索条数
+     * @return 拼接好的上下文
+     */
+    Mono<String> retrieve(String historyPrompt, ChatMessage question, int limit);
+}
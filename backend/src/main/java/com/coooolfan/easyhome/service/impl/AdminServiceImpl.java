@@ -1,59 +1,203 @@
 package com.coooolfan.easyhome.service.impl;
 
+import com.coooolfan.easyhome.exception.BaseException;
 import com.coooolfan.easyhome.mapper.CommonKnowledgeVecMapper;
 import com.coooolfan.easyhome.mapper.HouseMapper;
 import com.coooolfan.easyhome.mapper.HouseVecMapper;
 import com.coooolfan.easyhome.pojo.entity.House;
+import com.coooolfan.easyhome.pojo.vo.VecRebuildProgressVO;
 import com.coooolfan.easyhome.service.AdminService;
 import com.coooolfan.easyhome.utils.EasyHomeUtils;
 import com.coooolfan.easyhome.utils.EmbeddingUtils;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.noear.solon.ai.embedding.EmbeddingModel;
 import org.noear.solon.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class AdminServiceImpl implements AdminService {
 
-    private HouseMapper houseMapper;
+    private final HouseMapper houseMapper;
 
-    private HouseVecMapper houseVecMapper;
+    private final HouseVecMapper houseVecMapper;
 
-    private CommonKnowledgeVecMapper commonKnowledgeVecMapper;
+    private final CommonKnowledgeVecMapper commonKnowledgeVecMapper;
 
-    private EmbeddingModel embeddingModel;
+    private final EmbeddingModel embeddingModel;
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${embed.model}")
+    private String model;
+
+    /**
+     * 单次向量化请求携带的文本条数
+     */
+    @Value("${embed.batch-size:64}")
+    private int batchSize;
+
+    /**
+     * 同时进行的向量化请求数
+     */
+    @Value("${embed.concurrency:4}")
+    private int concurrency;
+
+    private final AtomicBoolean houseVecRunning = new AtomicBoolean(false);
+    private final LongAdder houseVecEmbedded = new LongAdder();
+    private final LongAdder houseVecFailed = new LongAdder();
+    private final LongAdder houseVecReused = new LongAdder();
+    private volatile long houseVecTotal;
+    private volatile LocalDateTime houseVecStartedAt;
+    private volatile LocalDateTime houseVecFinishedAt;
+    private volatile long houseVecStartNanos;
+    private volatile long houseVecEndNanos;
 
     @Override
-    @SneakyThrows
     public void resetHouseVec() {
-        ArrayList<String> houseStr = new ArrayList<>();
-        val houses = houseMapper.selectList(null);
-
-        // 先清空所有向量数据
-        houseVecMapper.clearAll();
+        if (!houseVecRunning.compareAndSet(false, true)) {
+            throw new BaseException("房屋向量正在重建中，请稍后再试");
+        }
+        try {
+            houseVecStartedAt = LocalDateTime.now();
+            houseVecStartNanos = System.nanoTime();
+            val houses = houseMapper.selectList(null);
+            houseVecEmbedded.reset();
+            houseVecFailed.reset();
+            houseVecReused.reset();
+            houseVecTotal = houses.size();
+            houseVecFinishedAt = null;
+
+            // 写入影子表，线上表在切换前保持可查询
+            houseVecMapper.dropShadow();
+            houseVecMapper.createShadow();
+
+            // 按批次并发向量化，并发数由线程池大小限制，close() 会等待全部批次结束
+            try (ExecutorService executor = Executors.newFixedThreadPool(
+                    concurrency, Thread.ofVirtual().name("house-vec-", 0).factory())) {
+                for (int i = 0; i < houses.size(); i += batchSize) {
+                    List<House> batch = houses.subList(i, Math.min(i + batchSize, houses.size()));
+                    executor.execute(() -> embedHouseBatch(batch));
+                }
+            }
+            log.info("房屋向量写入完成, 成功: {}, 复用: {}, 失败: {}, 总数: {}, 开始构建索引",
+                    houseVecEmbedded.sum(), houseVecReused.sum(), houseVecFailed.sum(), houseVecTotal);
+
+            houseVecMapper.createShadowIndex();
+            swapHouseVecShadow(houseVecStartedAt);
+            log.info("房屋向量重建完成，已切换至新表");
+        } finally {
+            houseVecEndNanos = System.nanoTime();
+            houseVecFinishedAt = LocalDateTime.now();
+            houseVecRunning.set(false);
+        }
+    }
 
-        for (int i = 0; i < houses.size(); i++) {
-            House house = houses.get(i);
-            String str = EasyHomeUtils.toString(house);
-            EmbeddingResponse resp = embeddingModel.input(str).call();
-            float[] embedding = resp.getData().getFirst().getEmbedding();
-            embedding = EmbeddingUtils.cut(embedding);
-            // 将float[]转换为PostgreSQL vector格式的字符串: [1,2,3,...]
-            String vectorStr = Arrays.toString(embedding);
+    /**
+     * 在同一事务内合并重建期间的增量并原子替换线上表
+     *
+     * @param since 重建开始时间
+     */
+    private void swapHouseVecShadow(LocalDateTime since) {
+        transactionTemplate.executeWithoutResult(status -> {
+            houseVecMapper.lockLive();
+            int replaced = houseVecMapper.deleteShadowUpdatedSince(since);
+            int merged = houseVecMapper.mergeLiveIntoShadow();
+            int pruned = houseVecMapper.pruneShadow();
+            houseVecMapper.retireLive();
+            houseVecMapper.promoteShadow();
+            houseVecMapper.dropRetired();
+            log.info("影子表切换: 以线上为准 {} 条, 补齐 {} 条, 剔除 {} 条", replaced, merged, pruned);
+        });
+    }
 
-            houseVecMapper.insertHouseVec(house.getId(), vectorStr);
+    private void embedHouseBatch(List<House> batch) {
+        try {
+            // 指纹与线上向量一致的房源直接复制线上向量，只对变化过的房源调用向量化接口
+            Map<Long, String> fingerprints = batch.stream().collect(Collectors.toMap(House::getId,
+                    house -> EasyHomeUtils.embeddingFingerprint(model, house)));
+            Map<Long, String> current = houseVecMapper.selectContentHashes(fingerprints.keySet());
+            List<House> changed = batch.stream()
+                    .filter(house -> !fingerprints.get(house.getId()).equals(current.get(house.getId())))
+                    .toList();
+
+            List<float[]> embeddings = new ArrayList<>(changed.size());
+            if (!changed.isEmpty()) {
+                String[] texts = changed.stream().map(EasyHomeUtils::toString).toArray(String[]::new);
+                EmbeddingResponse resp = embeddingModel.input(texts).call();
+                val data = resp.getData();
+                if (data == null || data.size() != changed.size()) {
+                    throw new IllegalStateException("向量化结果数量与请求不一致");
+                }
+                data.forEach(item -> embeddings.add(EmbeddingUtils.cut(item.getEmbedding())));
+            }
+
+            try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+                HouseVecMapper batchMapper = session.getMapper(HouseVecMapper.class);
+                for (int i = 0; i < changed.size(); i++) {
+                    Long houseId = changed.get(i).getId();
+                    batchMapper.insertShadowHouseVec(houseId, embeddings.get(i), fingerprints.get(houseId));
+                }
+                for (House house : batch) {
+                    if (fingerprints.get(house.getId()).equals(current.get(house.getId()))) {
+                        batchMapper.copyLiveToShadow(house.getId());
+                    }
+                }
+                session.flushStatements();
+                session.commit();
+            }
+
+            houseVecEmbedded.add(changed.size());
+            houseVecReused.add(batch.size() - changed.size());
+            log.info("已处理 {} 条房源数据, 复用 {} 条, 进度: {}/{}", batch.size(), batch.size() - changed.size(),
+                    houseVecEmbedded.sum() + houseVecReused.sum() + houseVecFailed.sum(), houseVecTotal);
+        } catch (Exception e) {
+            houseVecFailed.add(batch.size());
+            log.error("房源向量批次处理失败, 起始ID: {}", batch.getFirst().getId(), e);
+        }
+    }
 
-            log.info("已处理第 {} 条房源数据: {}, 进度: {}/{}",
-                    i + 1, house.getId(), i + 1, houses.size());
+    @Override
+    public VecRebuildProgressVO getHouseVecProgress() {
+        boolean running = houseVecRunning.get();
+        long embedded = houseVecEmbedded.sum();
+        long elapsedNanos = 0;
+        if (houseVecStartedAt != null) {
+            elapsedNanos = (running ? System.nanoTime() : houseVecEndNanos) - houseVecStartNanos;
         }
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        return VecRebuildProgressVO.builder()
+                .running(running)
+                .total(houseVecTotal)
+                .embedded(embedded)
+                .reused(houseVecReused.sum())
+                .failed(houseVecFailed.sum())
+                .startedAt(houseVecStartedAt)
+                .finishedAt(houseVecFinishedAt)
+                .elapsedMillis(elapsedMillis)
+                .throughput(elapsedMillis == 0 ? 0 : embedded * 1000.0 / elapsedMillis)
+                .build();
     }
 
     @Override
@@ -68,10 +212,8 @@ public class AdminServiceImpl implements AdminService {
             EmbeddingResponse embeddingResponse = embeddingModel.input(commonKnowledgeVec.getContent()).call();
             float[] embedding = embeddingResponse.getData().getFirst().getEmbedding();
             embedding = EmbeddingUtils.cut(embedding);
-            // 将float[]转换为PostgreSQL vector格式的字符串: [1,2,3,...]
-            String vectorStr = Arrays.toString(embedding);
 
-            commonKnowledgeVecMapper.updateHouseVec(commonKnowledgeVec.getId(), vectorStr);
+            commonKnowledgeVecMapper.updateHouseVec(commonKnowledgeVec.getId(), embedding);
 
             log.info("已处理第 {} 条公共知识数据: {}, 进度: {}/{}",
                     i + 1, commonKnowledgeVec.getId(), i + 1, commonKnowledgeVecs.size());
@@ -0,0 +1,162 @@
+package com.coooolfan.easyhome.service.impl;
+
+import com.coooolfan.easyhome.constant.LLMConstant;
+import com.coooolfan.easyhome.service.ChatHistoryService;
+import com.coooolfan.easyhome.utils.ChatMetrics;
+import com.coooolfan.easyhome.utils.ChatSession;
+import com.coooolfan.easyhome.utils.EasyHomeUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.noear.solon.ai.chat.ChatModel;
+import org.noear.solon.ai.chat.ChatResponse;
+import org.noear.solon.ai.chat.ChatRole;
+import org.noear.solon.ai.chat.message.ChatMessage;
+import org.noear.solon.ai.chat.message.SystemMessage;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.coooolfan.easyhome.service.impl.HouseServiceImpl.getPromptBuilder;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatHistoryServiceImpl implements ChatHistoryService {
+
+    private final ChatModel rewriteModel;
+
+    private final ChatMetrics chatMetrics;
+
+    /**
+     * 最近消息窗口的估算 token 预算
+     */
+    @Value("${llm.history.window-tokens:2000}")
+    private int windowTokens;
+
+    /**
+     * 滑出窗口的消息累计到该条数后才合并进摘要
+     */
+    @Value("${llm.history.min-fold-messages:2}")
+    private int minFoldMessages;
+
+    /**
+     * 摘要请求的超时时间，超时后放弃本次合并
+     */
+    @Value("${llm.history.summary-timeout:60s}")
+    private Duration summaryTimeout;
+
+    @Override
+    public ArrayList<ChatMessage> window(ChatSession chatSession) {
+        List<ChatMessage> content = chatSession.getChatContent();
+        ArrayList<ChatMessage> window = new ArrayList<>();
+        int from = systemCount(content);
+        window.addAll(content.subList(0, from));
+        if (chatSession.getSummary() != null) {
+            window.add(new SystemMessage(LLMConstant.HISTORY_SUMMARY_PREFIX + chatSession.getSummary()));
+        }
+        window.addAll(content.subList(windowStart(content), content.size()));
+        return window;
+    }
+
+    @Override
+    public String promptHistory(ChatSession chatSession) {
+        List<ChatMessage> content = chatSession.getChatContent();
+        StringBuilder history = getPromptBuilder(new ArrayList<>(content.subList(windowStart(content), content.size())));
+        if (chatSession.getSummary() != null) {
+            history.insert(0, "SUMMARY: \n" + chatSession.getSummary() + "\n");
+        }
+        return history.isEmpty() ? null : history.toString();
+    }
+
+    @Override
+    public Mono<HistoryFold> summarize(ChatSession chatSession) {
+        List<ChatMessage> content = chatSession.getChatContent();
+        List<ChatMessage> folded = new ArrayList<>(content.subList(systemCount(content), windowStart(content)));
+        if (folded.size() < minFoldMessages) {
+            return Mono.empty();
+        }
+        String previous = chatSession.getSummary();
+        String prompt = String.format(LLMConstant.HISTORY_SUMMARY,
+                previous == null ? "NONE" : previous, getPromptBuilder(new ArrayList<>(folded)));
+        Mono<String> summary = Flux.defer(() -> streamOf(prompt))
+                .last()
+                .map(resp -> resp.getAggregationMessage().getContent())
+                .timeout(summaryTimeout);
+        return chatMetrics.time("summary", summary)
+                .map(newSummary -> new HistoryFold(folded, previous, newSummary))
+                .onErrorResume(e -> {
+                    log.warn("chat session {} 摘要生成失败: {}", chatSession.getUuid(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public boolean applyFold(ChatSession chatSession, HistoryFold fold) {
+        List<ChatMessage> content = chatSession.getChatContent();
+        int from = systemCount(content);
+        List<ChatMessage> folded = fold.folded();
+        if (!Objects.equals(chatSession.getSummary(), fold.previous()) || content.size() - from < folded.size()) {
+            return false;
+        }
+        // 会话可能是从 Redis 重新读取的副本，逐条比较角色与内容，确认开头仍是被合并的消息
+        for (int i = 0; i < folded.size(); i++) {
+            ChatMessage current = content.get(from + i);
+            ChatMessage expected = folded.get(i);
+            if (current != expected && (current.getRole() != expected.getRole()
+                    || !Objects.equals(current.getContent(), expected.getContent()))) {
+                return false;
+            }
+        }
+        Set<ChatMessage> foldedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        foldedSet.addAll(content.subList(from, from + folded.size()));
+        chatSession.setSummary(fold.summary());
+        content.removeIf(foldedSet::contains);
+        log.info("chat session {} folded {} messages into summary", chatSession.getUuid(), folded.size());
+        return true;
+    }
+
+    /**
+     * 开头的系统消息条数，系统消息始终保留
+     */
+    private static int systemCount(List<ChatMessage> content) {
+        int count = 0;
+        while (count < content.size() && content.get(count).getRole() == ChatRole.SYSTEM) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 从最新消息向前累计 token，返回预算内最早一条消息的下标，至少保留最新一条
+     */
+    private int windowStart(List<ChatMessage> content) {
+        int floor = systemCount(content);
+        int start = content.size();
+        int tokens = 0;
+        while (start > floor) {
+            int next = tokens + EasyHomeUtils.estimateTokens(content.get(start - 1).getContent());
+            if (next > windowTokens && start < content.size()) {
+                break;
+            }
+            tokens = next;
+            start--;
+        }
+        return start;
+    }
+
+    @SneakyThrows
+    private Publisher<ChatResponse> streamOf(String prompt) {
+        return rewriteModel.prompt(prompt).stream();
+    }
+}
@@ -4,18 +4,18 @@ import com.coooolfan.easyhome.constant.LLMConstant;
 import com.coooolfan.easyhome.mapper.CommonKnowledgeVecMapper;
 import com.coooolfan.easyhome.pojo.entity.CommonKnowledgeVec;
 import com.coooolfan.easyhome.service.CommonKnowledgeVecService;
-import com.coooolfan.easyhome.utils.EmbeddingUtils;
-import lombok.AllArgsConstructor;
+import com.coooolfan.easyhome.service.EmbeddingService;
+import com.coooolfan.easyhome.utils.RankFusion;
+import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.noear.solon.ai.chat.ChatModel;
 import org.noear.solon.ai.chat.message.ChatMessage;
-import org.noear.solon.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,22 +23,44 @@ import static com.coooolfan.easyhome.service.impl.HouseServiceImpl.getPromptBuil
 
 @Service
 @Slf4j
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class CommonKnowledgeVecServiceImpl implements CommonKnowledgeVecService {
 
-    private final EmbeddingModel embed;
+    private final EmbeddingService embeddingService;
 
     private final CommonKnowledgeVecMapper mapper;
 
     private final ChatModel rewriteModel;
 
+    @Value("${search.rrf.k:60}")
+    private int rrfK;
+
+    @Value("${search.rrf.candidates:20}")
+    private int rrfCandidates;
+
+    @Value("${search.keyword.max-distance:0.8}")
+    private double keywordMaxDistance;
+
+    @Override
+    public List<String> getCommonKnowledgeByHybridSearch(String query, float[] embedding, int limit) {
+        int candidates = Math.max(limit, rrfCandidates);
+        List<CommonKnowledgeVec> byVector = mapper.selectSimilar(embedding, candidates);
+        List<CommonKnowledgeVec> byKeyword = mapper.selectByKeyword(query, candidates).stream()
+                .filter(com -> com.getDistance() != null && com.getDistance() <= keywordMaxDistance)
+                .toList();
+        return RankFusion.fuse(rrfK, limit, CommonKnowledgeVec::getId, byVector, byKeyword).stream()
+                .map(CommonKnowledgeVec::getContent).collect(Collectors.toList());
+    }
+
     @Override
     @SneakyThrows
     public List<String> getCommonKnowledgeByVectorSearch(String query, int limit) {
-        var embedding = embed.input(query).call().getData().getFirst().getEmbedding();
-        embedding = EmbeddingUtils.cut(embedding);
-        List<Long> similarHouses = mapper.findSimilarCommonKnowledge(Arrays.toString(embedding), limit);
-        return mapper.selectBatchIds(similarHouses).stream()
+        return getCommonKnowledgeByEmbedding(embeddingService.embed(query), limit);
+    }
+
+    @Override
+    public List<String> getCommonKnowledgeByEmbedding(float[] embedding, int limit) {
+        return mapper.selectSimilar(embedding, limit).stream()
                 .map(CommonKnowledgeVec::getContent).collect(Collectors.toList());
     }
 
@@ -0,0 +1,101 @@
+package com.coooolfan.easyhome.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.AbstractWrapper;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.coooolfan.easyhome.constant.CountMode;
+import com.coooolfan.easyhome.mapper.StatsMapper;
+import com.coooolfan.easyhome.service.CountService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CountServiceImpl implements CountService {
+
+    private final StatsMapper statsMapper;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * AUTO 模式下估算值低于该值时改为精确统计
+     */
+    @Value("${count.exact-threshold:10000}")
+    private long exactThreshold;
+
+    @Value("${count.ttl:30s}")
+    private Duration ttl;
+
+    @Value("${count.cache-size:1000}")
+    private long cacheSize;
+
+    private Cache<String, Long> counts;
+
+    @PostConstruct
+    public void init() {
+        counts = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public <T> long count(CountMode mode, String table, BaseMapper<T> mapper, Wrapper<T> wrapper) {
+        if (mode == CountMode.NONE) {
+            return 0;
+        }
+        return counts.get(cacheKey(mode, table, wrapper), k -> switch (mode) {
+            case EXACT -> mapper.selectCount(wrapper);
+            case ESTIMATED -> {
+                long estimated = estimate(table, wrapper);
+                yield estimated < 0 ? mapper.selectCount(wrapper) : estimated;
+            }
+            default -> {
+                long estimated = estimate(table, wrapper);
+                yield estimated < 0 || estimated < exactThreshold ? mapper.selectCount(wrapper) : estimated;
+            }
+        });
+    }
+
+    /**
+     * @return 估算行数，无法估算时返回 -1
+     */
+    private long estimate(String table, Wrapper<?> wrapper) {
+        try {
+            if (wrapper.isEmptyOfWhere()) {
+                Long reltuples = statsMapper.selectReltuples(table);
+                return reltuples == null ? -1 : reltuples;
+            }
+            JsonNode plan = objectMapper.readTree(statsMapper.explain(table, wrapper));
+            return plan.path(0).path("Plan").path("Plan Rows").asLong(-1);
+        } catch (Exception e) {
+            log.warn("估算 {} 总数失败: {}", table, e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * 缓存键：统计方式、表名、带占位符的条件 SQL 与按参数名排序的参数值
+     */
+    private static String cacheKey(CountMode mode, String table, Wrapper<?> wrapper) {
+        StringBuilder key = new StringBuilder(mode.name()).append('|').append(table).append('|')
+                .append(wrapper.getCustomSqlSegment());
+        if (wrapper instanceof AbstractWrapper<?, ?, ?> abstractWrapper) {
+            Map<String, Object> params = new TreeMap<>(abstractWrapper.getParamNameValuePairs());
+            key.append('|').append(params);
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,210 @@
+package com.coooolfan.easyhome.service.impl;
+
+import com.coooolfan.easyhome.pojo.vo.CacheStatsVO;
+import com.coooolfan.easyhome.service.EmbeddingService;
+import com.coooolfan.easyhome.utils.EasyHomeUtils;
+import com.coooolfan.easyhome.utils.EmbeddingUtils;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.noear.solon.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 查询向量化服务
+ * <p>
+ * 在 embedModel 前加一层本地缓存(容量 + TTL 淘汰)与 Redis 缓存，
+ * 键为模型名与归一化后的文本摘要，同一进程内对同一键的并发请求只会触发一次远程调用。
+ * 返回的向量均为缓存的副本，调用方修改不会影响缓存。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmbeddingServiceImpl implements EmbeddingService {
+
+    private static final String REDIS_KEY_PREFIX = "easyhome:embed:";
+
+    private final EmbeddingModel embedModel;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${embed.model}")
+    private String model;
+
+    @Value("${embed.cache.local-size:10000}")
+    private long localSize;
+
+    @Value("${embed.cache.local-ttl:30m}")
+    private Duration localTtl;
+
+    @Value("${embed.cache.redis-ttl:7d}")
+    private Duration redisTtl;
+
+    /**
+     * 缓存进行中或已完成的加载，失败的加载会被 Caffeine 自动移除
+     */
+    private AsyncCache<String, float[]> localCache;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(localSize)
+                .expireAfterWrite(localTtl)
+                .buildAsync();
+    }
+
+    @Override
+    public float[] embed(String text) {
+        String normalized = normalize(text);
+        String key = cacheKey(normalized);
+
+        CompletableFuture<float[]> cached = localCache.getIfPresent(key);
+        if (cached == null) {
+            // 先放入未完成的 future 占位，Redis 与远程调用在缓存的锁外由当前线程执行，
+            // 不会在虚拟线程上长时间持有监视器，也不阻塞同一分段的其他键
+            CompletableFuture<float[]> created = new CompletableFuture<>();
+            cached = localCache.asMap().putIfAbsent(key, created);
+            if (cached == null) {
+                try {
+                    created.complete(load(key, normalized));
+                } catch (RuntimeException e) {
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+                return created.join().clone();
+            }
+        }
+        // 命中已完成或其他线程进行中的加载
+        localHits.increment();
+        try {
+            return cached.join().clone();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private float[] load(String key, String normalized) {
+        String redisKey = REDIS_KEY_PREFIX + key;
+        try {
+            String value = stringRedisTemplate.opsForValue().get(redisKey);
+            if (value != null) {
+                redisHits.increment();
+                return EmbeddingUtils.fromBytes(Base64.getDecoder().decode(value));
+            }
+        } catch (Exception e) {
+            log.warn("读取向量缓存失败: {}", e.getMessage());
+        }
+
+        misses.increment();
+        float[] embedding;
+        try {
+            embedding = embedModel.input(normalized).call().getData().getFirst().getEmbedding();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        embedding = EmbeddingUtils.cut(embedding);
+        store(redisKey, embedding);
+        return embedding;
+    }
+
+    @Override
+    public List<float[]> embedAll(List<String> texts) {
+        Map<String, String> textByKey = new HashMap<>();
+        List<String> keys = texts.stream().map(text -> {
+            String normalized = normalize(text);
+            String key = cacheKey(normalized);
+            textByKey.put(key, normalized);
+            return key;
+        }).toList();
+
+        Map<String, float[]> result = new HashMap<>(localCache.synchronous().getAllPresent(textByKey.keySet()));
+        localHits.add(result.size());
+        List<String> missing = textByKey.keySet().stream().filter(key -> !result.containsKey(key)).toList();
+        if (!missing.isEmpty()) {
+            try {
+                List<String> values = stringRedisTemplate.opsForValue()
+                        .multiGet(missing.stream().map(key -> REDIS_KEY_PREFIX + key).toList());
+                for (int i = 0; values != null && i < missing.size(); i++) {
+                    if (values.get(i) != null) {
+                        redisHits.increment();
+                        float[] embedding = EmbeddingUtils.fromBytes(Base64.getDecoder().decode(values.get(i)));
+                        result.put(missing.get(i), embedding);
+                        localCache.synchronous().put(missing.get(i), embedding);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("读取向量缓存失败: {}", e.getMessage());
+            }
+        }
+
+        // 两级缓存都未命中的文本合并为一次请求
+        List<String> toEmbed = missing.stream().filter(key -> !result.containsKey(key)).toList();
+        if (!toEmbed.isEmpty()) {
+            misses.add(toEmbed.size());
+            String[] inputs = toEmbed.stream().map(textByKey::get).toArray(String[]::new);
+            try {
+                val data = embedModel.input(inputs).call().getData();
+                if (data == null || data.size() != inputs.length) {
+                    throw new IllegalStateException("向量化结果数量与请求不一致");
+                }
+                for (int i = 0; i < toEmbed.size(); i++) {
+                    float[] embedding = EmbeddingUtils.cut(data.get(i).getEmbedding());
+                    result.put(toEmbed.get(i), embedding);
+                    localCache.synchronous().put(toEmbed.get(i), embedding);
+                    store(REDIS_KEY_PREFIX + toEmbed.get(i), embedding);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return keys.stream().map(key -> result.get(key).clone()).toList();
+    }
+
+    private String cacheKey(String normalized) {
+        return EasyHomeUtils.sha256Hex(model + "\n" + normalized);
+    }
+
+    private void store(String redisKey, float[] embedding) {
+        try {
+            stringRedisTemplate.opsForValue().set(redisKey,
+                    Base64.getEncoder().encodeToString(EmbeddingUtils.toBytes(embedding)), redisTtl);
+        } catch (Exception e) {
+            log.warn("写入向量缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 归一化查询文本：Unicode 兼容形式、去除首尾空白、合并连续空白、英文小写
+     */
+    private static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        return normalized.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public CacheStatsVO getCacheStats() {
+        return CacheStatsVO.of(localHits.sum(), redisHits.sum(), misses.sum(), localCache.synchronous().estimatedSize());
+    }
+}
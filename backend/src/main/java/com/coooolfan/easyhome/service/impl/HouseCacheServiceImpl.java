@@ -0,0 +1,264 @@
+package com.coooolfan.easyhome.service.impl;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.coooolfan.easyhome.message.HouseChangedEvent;
+import com.coooolfan.easyhome.pojo.dto.HouseQueryDTO;
+import com.coooolfan.easyhome.pojo.entity.House;
+import com.coooolfan.easyhome.pojo.vo.CacheStatsVO;
+import com.coooolfan.easyhome.service.HouseCacheService;
+import com.coooolfan.easyhome.service.HouseService;
+import com.coooolfan.easyhome.utils.EasyHomeUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HouseCacheServiceImpl implements HouseCacheService {
+
+    public static final String INVALIDATE_CHANNEL = "easyhome:house:invalidate";
+
+    private static final String GENERATION_KEY = "easyhome:house:gen";
+
+    private static final String DETAIL_PREFIX = "easyhome:house:detail:";
+
+    /**
+     * 每个房源的版本号，写入提交后递增；Redis 中的详情键带有版本号，回源前读取版本，
+     * 与写入并发的读者即使晚于失效写回旧数据，也只会写到旧版本的键上，不再被读到
+     */
+    private static final String VERSION_PREFIX = "easyhome:house:ver:";
+
+    private static final String LIST_PREFIX = "easyhome:house:list:";
+
+    private final HouseService houseService;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${house.cache.local-size:10000}")
+    private long localSize;
+
+    @Value("${house.cache.detail-ttl:10m}")
+    private Duration detailTtl;
+
+    @Value("${house.cache.list-ttl:60s}")
+    private Duration listTtl;
+
+    /**
+     * 详情缓存，不存在的房源以 Optional.empty() 缓存，避免反复穿透到数据库
+     */
+    private Cache<Long, Optional<House>> detailCache;
+
+    /**
+     * 分页缓存，键中带有列表代数，代数递增后旧条目不再命中
+     */
+    private Cache<String, Object> listCache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 分页结果在 Redis 中的存储形式，只保留记录与总数
+     */
+    record PageSnapshot(List<House> records, long total) {
+    }
+
+    @PostConstruct
+    public void init() {
+        detailCache = Caffeine.newBuilder()
+                .maximumSize(localSize)
+                .expireAfterWrite(detailTtl)
+                .build();
+        listCache = Caffeine.newBuilder()
+                .maximumSize(localSize)
+                .expireAfterWrite(listTtl)
+                .build();
+        try {
+            generation.set(Long.parseLong(currentGeneration()));
+        } catch (Exception e) {
+            log.warn("读取房源列表代数失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 读取 Redis 中的列表代数；首次使用或 Redis 数据被清空时以当前时间为起点，
+     * 保证代数单调递增，不会与之前用过的代数(及客户端持有的旧 ETag)重复
+     */
+    private String currentGeneration() {
+        String gen = stringRedisTemplate.opsForValue().get(GENERATION_KEY);
+        if (gen != null) {
+            return gen;
+        }
+        String seed = String.valueOf(System.currentTimeMillis());
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(GENERATION_KEY, seed))
+                ? seed : stringRedisTemplate.opsForValue().get(GENERATION_KEY);
+    }
+
+    @Override
+    public House getById(Long id) {
+        Optional<House> cached = detailCache.getIfPresent(id);
+        if (cached != null) {
+            localHits.increment();
+            return cached.orElse(null);
+        }
+        // 同一节点对同一房源的并发未命中只会有一个线程回源
+        return detailCache.get(id, this::loadDetail).orElse(null);
+    }
+
+    private Optional<House> loadDetail(Long id) {
+        String version;
+        try {
+            version = stringRedisTemplate.opsForValue().get(VERSION_PREFIX + id);
+        } catch (Exception e) {
+            log.warn("读取房源版本失败: {}", e.getMessage());
+            misses.increment();
+            return Optional.ofNullable(houseService.getById(id));
+        }
+        String key = DETAIL_PREFIX + id + ":" + (version == null ? 0 : version);
+        return Optional.ofNullable(readThrough(key, detailTtl, new TypeReference<House>() {
+        }, () -> houseService.getById(id)));
+    }
+
+    @Override
+    public IPage<House> getByPage(Page<House> page, HouseQueryDTO queryVO) {
+        String query;
+        try {
+            query = page.getCurrent() + ":" + page.getSize() + ":" + objectMapper.writeValueAsString(queryVO);
+        } catch (JsonProcessingException e) {
+            return houseService.getByPage(page, queryVO);
+        }
+        String key = LIST_PREFIX + generation.get() + ":page:" + EasyHomeUtils.sha256Hex(query);
+        PageSnapshot snapshot = cachedList(key, new TypeReference<PageSnapshot>() {
+        }, () -> {
+            IPage<House> result = houseService.getByPage(page, queryVO);
+            return new PageSnapshot(result.getRecords(), result.getTotal());
+        });
+        Page<House> result = new Page<>(page.getCurrent(), page.getSize(), snapshot.total());
+        result.setRecords(snapshot.records());
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cachedList(String key, TypeReference<T> type, Supplier<T> loader) {
+        Object cached = listCache.getIfPresent(key);
+        if (cached != null) {
+            localHits.increment();
+            return (T) cached;
+        }
+        return (T) listCache.get(key, k -> readThrough(k, listTtl, type, loader));
+    }
+
+    /**
+     * 先读 Redis，未命中时回源并写回 Redis，Redis 异常时直接回源
+     */
+    private <T> T readThrough(String redisKey, Duration ttl, TypeReference<T> type, Supplier<T> loader) {
+        try {
+            String json = stringRedisTemplate.opsForValue().get(redisKey);
+            if (json != null) {
+                redisHits.increment();
+                return objectMapper.readValue(json, type);
+            }
+        } catch (Exception e) {
+            log.warn("读取房源缓存失败: {}", e.getMessage());
+        }
+        misses.increment();
+        T value = loader.get();
+        if (value != null) {
+            try {
+                // 过期时间加入随机抖动，避免同一批热点条目同时过期后集中回源
+                long jitter = ThreadLocalRandom.current().nextLong(ttl.toMillis() / 10 + 1);
+                stringRedisTemplate.opsForValue().set(redisKey, objectMapper.writeValueAsString(value),
+                        ttl.plusMillis(jitter));
+            } catch (Exception e) {
+                log.warn("写入房源缓存失败: {}", e.getMessage());
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 房源写入事务提交后失效缓存，未在事务中发布的事件立即处理
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHouseChanged(HouseChangedEvent event) {
+        Long gen = null;
+        try {
+            if (event.houseId() != null) {
+                Long version = stringRedisTemplate.opsForValue().increment(VERSION_PREFIX + event.houseId());
+                if (version != null) {
+                    stringRedisTemplate.delete(DETAIL_PREFIX + event.houseId() + ":" + (version - 1));
+                }
+            }
+            currentGeneration();
+            gen = stringRedisTemplate.opsForValue().increment(GENERATION_KEY);
+            if (gen != null) {
+                stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL,
+                        (event.houseId() == null ? "" : event.houseId()) + ":" + gen);
+            }
+        } catch (Exception e) {
+            log.warn("广播房源缓存失效失败，仅失效本节点: {}", e.getMessage());
+        }
+        if (gen == null) {
+            // 不自行生成代数，避免与其他节点使用同一代数写入不同的分页数据
+            if (event.houseId() != null) {
+                detailCache.invalidate(event.houseId());
+            }
+            listCache.invalidateAll();
+            return;
+        }
+        evictLocal(event.houseId(), gen);
+    }
+
+    @Override
+    public void evictLocal(Long houseId, long gen) {
+        if (houseId != null) {
+            detailCache.invalidate(houseId);
+        }
+        // 代数与本地不同即清空，本地代数保留较大值，迟到的旧消息不会让列表键回退到旧代数
+        if (generation.getAndAccumulate(gen, Math::max) != gen) {
+            listCache.invalidateAll();
+        }
+    }
+
+    @Override
+    public String getPublishedVersion() {
+        try {
+            String gen = currentGeneration();
+            if (gen != null) {
+                return "g" + gen;
+            }
+        } catch (Exception e) {
+            log.warn("读取房源列表代数失败，改为按表统计版本: {}", e.getMessage());
+        }
+        return houseService.getPublishedVersion();
+    }
+
+    @Override
+    public CacheStatsVO getCacheStats() {
+        return CacheStatsVO.of(localHits.sum(), redisHits.sum(), misses.sum(),
+                detailCache.estimatedSize() + listCache.estimatedSize());
+    }
+}
@@ -5,23 +5,23 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.coooolfan.easyhome.constant.HouseConstant;
 import com.coooolfan.easyhome.constant.PublishConstant;
+import com.coooolfan.easyhome.message.HouseChangedEvent;
 import com.coooolfan.easyhome.mapper.HouseMapper;
 import com.coooolfan.easyhome.mapper.HouseRecordMapper;
 import com.coooolfan.easyhome.mapper.HouseUserRelationMapper;
 import com.coooolfan.easyhome.mapper.HouseVecMapper;
+import com.coooolfan.easyhome.mapper.HouseVecOutboxMapper;
 import com.coooolfan.easyhome.pojo.dto.HouseDTO;
 import com.coooolfan.easyhome.pojo.entity.*;
 import com.coooolfan.easyhome.service.HouseRecordService;
-import com.coooolfan.easyhome.utils.EmbeddingUtils;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.noear.solon.ai.embedding.EmbeddingModel;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -41,7 +41,7 @@ public class HouseRecordServiceImpl
     private HouseVecMapper houseVecMapper;
 
     @Resource
-    private EmbeddingModel embed;
+    private HouseVecOutboxMapper houseVecOutboxMapper;
 
     @Resource
     private HouseUserRelationMapper houseUserRelationMapper;
@@ -49,6 +49,9 @@ public class HouseRecordServiceImpl
     @Resource
     private HouseRecordMapper houseRecordMapper;
 
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public void publish(Long userId, HouseDTO dto) {
         HouseRecord record = new HouseRecord();
@@ -123,6 +126,7 @@ public class HouseRecordServiceImpl
         LambdaQueryWrapper<HouseUserRelation> relationQueryWrapper = new LambdaQueryWrapper<>();
         relationQueryWrapper.eq(HouseUserRelation::getHouseId, record.getHouseId());
         houseUserRelationMapper.delete(relationQueryWrapper);
+        eventPublisher.publishEvent(new HouseChangedEvent(record.getHouseId()));
     }
 
     @Override
@@ -163,12 +167,8 @@ public class HouseRecordServiceImpl
 
             try {
                 houseMapper.insert(house);
-                var embedding = embed.input(house
-                                .toString()).call()
-                        .getData().getFirst()
-                        .getEmbedding();
-                embedding = EmbeddingUtils.cut(embedding);
-                houseVecMapper.insertHouseVec(house.getId(), Arrays.toString(embedding));
+                // 向量在事务提交后由后台任务生成
+                houseVecOutboxMapper.enqueue(house.getId());
 
                 HouseUserRelation houseUserRelation = new HouseUserRelation();
                 houseUserRelation.setHouseId(house.getId());
@@ -180,6 +180,7 @@ public class HouseRecordServiceImpl
                 throw new RuntimeException(e);
             }
             this.updateById(record);
+            eventPublisher.publishEvent(new HouseChangedEvent(house.getId()));
             return true;
 
         } else {
@@ -4,35 +4,45 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.coooolfan.easyhome.constant.CountMode;
 import com.coooolfan.easyhome.constant.HouseConstant;
 import com.coooolfan.easyhome.mapper.HouseMapper;
 import com.coooolfan.easyhome.mapper.HouseVecMapper;
+import com.coooolfan.easyhome.mapper.HouseVecOutboxMapper;
 import com.coooolfan.easyhome.constant.LLMConstant;
+import com.coooolfan.easyhome.message.HouseChangedEvent;
 import com.coooolfan.easyhome.pojo.dto.HouseDTO;
 import com.coooolfan.easyhome.pojo.entity.House;
 import com.coooolfan.easyhome.pojo.entity.HouseRecord;
 import com.coooolfan.easyhome.pojo.entity.HouseVec;
 import com.coooolfan.easyhome.pojo.dto.HouseQueryDTO;
+import com.coooolfan.easyhome.pojo.vo.CursorPageVO;
+import com.coooolfan.easyhome.service.CountService;
+import com.coooolfan.easyhome.service.EmbeddingService;
 import com.coooolfan.easyhome.service.HouseRecordService;
 import com.coooolfan.easyhome.service.HouseService;
 import com.coooolfan.easyhome.utils.EasyHomeUtils;
-import com.coooolfan.easyhome.utils.EmbeddingUtils;
-import lombok.AllArgsConstructor;
+import com.coooolfan.easyhome.utils.RankFusion;
+import com.coooolfan.easyhome.utils.SeekCursor;
+import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.apache.ibatis.cursor.Cursor;
 import org.noear.solon.ai.chat.ChatModel;
 import org.noear.solon.ai.chat.ChatRole;
 import org.noear.solon.ai.chat.message.ChatMessage;
-import org.noear.solon.ai.embedding.EmbeddingModel;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author lima
@@ -40,34 +50,150 @@ import java.util.List;
  **/
 @Service
 @Slf4j
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements HouseService {
 
     private final HouseRecordService houseRecordService;
 
-    private EmbeddingModel embed;
+    private final EmbeddingService embeddingService;
 
-    private HouseVecMapper houseVecMapper;
+    private final HouseVecMapper houseVecMapper;
 
-    private HouseMapper houseMapper;
+    private final HouseVecOutboxMapper houseVecOutboxMapper;
 
-    private ChatModel rewriteModel;
+    private final HouseMapper houseMapper;
+
+    private final ChatModel rewriteModel;
+
+    private final CountService countService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${count.mode.house-page:AUTO}")
+    private CountMode pageCountMode;
+
+    /**
+     * 带筛选条件的向量检索使用的 HNSW 迭代扫描模式与候选队列大小
+     */
+    @Value("${search.hnsw.iterative-scan:relaxed_order}")
+    private String hnswIterativeScan;
+
+    @Value("${search.hnsw.ef-search:100}")
+    private int hnswEfSearch;
+
+    /**
+     * 融合检索：RRF 常数、每路候选条数、关键词结果的最大距离(超过视为不相关)
+     */
+    @Value("${search.rrf.k:60}")
+    private int rrfK;
+
+    @Value("${search.rrf.candidates:20}")
+    private int rrfCandidates;
+
+    @Value("${search.keyword.max-distance:0.8}")
+    private double keywordMaxDistance;
+
+    /**
+     * 关键词排序检索的词相似度阈值，低于该值的房源不返回
+     */
+    @Value("${search.keyword.similarity-threshold:0.4}")
+    private String keywordSimilarityThreshold;
 
     @Override
     public IPage<House> getByPage(Page<House> page, HouseQueryDTO queryVO) {
         QueryWrapper<House> queryWrapper = buildQueryWrapper(queryVO);
         log.info("page parameters: current={}, size={}, queryVO={}", page.getCurrent(), page.getSize(), queryVO);
-        return this.page(page, queryWrapper);
+        // 总数由 CountService 按配置的方式统计并缓存，不使用分页插件自带的 COUNT
+        page.setSearchCount(false);
+        IPage<House> result = this.page(page, queryWrapper);
+        result.setTotal(countService.count(pageCountMode, "houses", houseMapper, buildFilterWrapper(queryVO)));
+        return result;
     }
 
 
     @Override
     @SneakyThrows
     public List<House> getHousesByVectorSearch(String query, int limit) {
-        var embedding = embed.input(query).call().getData().getFirst().getEmbedding();
-        embedding = EmbeddingUtils.cut(embedding);
-        List<Long> similarHouses = houseVecMapper.findSimilarHouses(Arrays.toString(embedding), limit);
-        return houseMapper.selectBatchIds(similarHouses);
+        return getHousesByEmbedding(embeddingService.embed(query), limit);
+    }
+
+    @Override
+    public List<House> getHousesByEmbedding(float[] embedding, int limit) {
+        return houseMapper.selectSimilar(embedding, new QueryWrapper<>(), limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<House> getHousesByEmbedding(float[] embedding, HouseQueryDTO queryVO, int limit) {
+        QueryWrapper<House> queryWrapper = buildFilterWrapper(queryVO);
+        if (!queryWrapper.isEmptyOfWhere()) {
+            // 筛选条件较严格时 HNSW 首轮候选大多会被过滤掉，开启迭代扫描持续取候选直到凑满 limit，仅对当前事务生效
+            houseMapper.setLocalConfig("hnsw.iterative_scan", hnswIterativeScan);
+            houseMapper.setLocalConfig("hnsw.ef_search", String.valueOf(hnswEfSearch));
+        }
+        return houseMapper.selectSimilar(embedding, queryWrapper, limit);
+    }
+
+    @Override
+    public CursorPageVO<House> getByCursor(String cursor, int size, HouseQueryDTO queryVO) {
+        SeekCursor.Sort sort = SeekCursor.Sort.of(queryVO == null ? null : queryVO.getSortBy());
+        QueryWrapper<House> queryWrapper = buildFilterWrapper(queryVO);
+        if (StringUtils.hasText(cursor)) {
+            SeekCursor.Position position = SeekCursor.decode(sort, cursor);
+            // 行值比较可直接走 (排序列, id) 复合索引
+            queryWrapper.apply("(" + sort.column() + ", id) " + (sort.asc() ? ">" : "<") + " ({0}, {1})",
+                    position.value(), position.id());
+        }
+        if (sort.asc()) {
+            queryWrapper.orderByAsc(sort.column(), "id");
+        } else {
+            queryWrapper.orderByDesc(sort.column(), "id");
+        }
+        // 多取一条用于判断是否还有下一页
+        queryWrapper.last("LIMIT " + (size + 1));
+        List<House> houses = houseMapper.selectList(queryWrapper);
+
+        boolean hasMore = houses.size() > size;
+        if (hasMore) {
+            houses = houses.subList(0, size);
+        }
+        String nextCursor = hasMore ? SeekCursor.encode(sort, houses.getLast()) : null;
+        return new CursorPageVO<>(houses, nextCursor, hasMore);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public IPage<House> searchByKeyword(Page<House> page, HouseQueryDTO queryVO) {
+        if (queryVO == null || !StringUtils.hasText(queryVO.getKeyword())) {
+            return getByPage(page, queryVO);
+        }
+        String keyword = queryVO.getKeyword().strip();
+        QueryWrapper<House> queryWrapper = buildFilterWrapper(queryVO);
+        // <% 可走 search_doc 的三元组索引，阈值仅对当前事务生效
+        queryWrapper.apply("{0} <% search_doc", keyword);
+        houseMapper.setLocalConfig("pg_trgm.word_similarity_threshold", keywordSimilarityThreshold);
+        log.info("search parameters: current={}, size={}, queryVO={}", page.getCurrent(), page.getSize(), queryVO);
+        return houseMapper.searchPage(page, keyword, queryWrapper);
+    }
+
+    @Override
+    public List<House> getHousesByHybridSearch(String query, float[] embedding, int limit) {
+        int candidates = Math.max(limit, rrfCandidates);
+        List<House> byVector = houseMapper.selectSimilar(embedding, new QueryWrapper<>(), candidates);
+        List<House> byKeyword = houseMapper.selectByKeyword(query, candidates).stream()
+                .filter(house -> house.getDistance() != null && house.getDistance() <= keywordMaxDistance)
+                .toList();
+        return RankFusion.fuse(rrfK, limit, House::getId, byVector, byKeyword);
+    }
+
+    @Override
+    @SneakyThrows
+    public List<House> getHousesByVectorSearch(String query, HouseQueryDTO queryVO, int limit) {
+        float[] embedding = embeddingService.embed(query);
+        // 内部调用不经过代理，显式开启事务使 set_config 与检索在同一连接、同一事务内执行；向量化不占用事务
+        return transactionTemplate.execute(status -> getHousesByEmbedding(embedding, queryVO, limit));
     }
 
 
@@ -114,23 +240,29 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         return String.format("<authoritative-information>\n%s\n</authoritative-information>", sb);
     }
 
+    @Override
+    @SneakyThrows
+    @Transactional(readOnly = true)
+    public void exportPublished(Consumer<House> consumer) {
+        try (Cursor<House> cursor = houseMapper.scanAll()) {
+            cursor.forEach(consumer);
+        }
+    }
+
+    @Override
+    public String getPublishedVersion() {
+        return houseMapper.selectVersion();
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void addHouseWithVec(HouseDTO houseDTO) {
         House house = new House();
         BeanUtils.copyProperties(houseDTO, house);
-        try {
-            if (this.save(house)) {
-                var embedding = embed.input(house
-                                .toString()).call()
-                        .getData().getFirst()
-                        .getEmbedding();
-                embedding = EmbeddingUtils.cut(embedding);
-                houseVecMapper.insertHouseVec(house.getId(), Arrays.toString(embedding));
-            }
-        } catch (Exception e) {
-            log.error(HouseConstant.FAIL_ADD, e.getMessage());
-            throw new RuntimeException(e);
+        if (this.save(house)) {
+            // 向量在事务提交后由后台任务生成，不在事务内等待向量化接口
+            houseVecOutboxMapper.enqueue(house.getId());
+            eventPublisher.publishEvent(new HouseChangedEvent(house.getId()));
         }
     }
 
@@ -144,6 +276,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         houseRecordQueryWrapper.eq("house_id", id);
         houseRecordService.remove(houseRecordQueryWrapper);
         houseVecMapper.delete(queryWrapper);
+        eventPublisher.publishEvent(new HouseChangedEvent(id));
     }
 
     @Override
@@ -157,23 +290,49 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
             throw new IllegalArgumentException(HouseConstant.ID_CANNOT_BE_NULL);
         }
 
-        try {
-            int rows = houseMapper.updateById(house);
-            if (rows > 0) {
-                var embedding = embed.input(house.toString()).call()
-                        .getData().getFirst().getEmbedding();
-                embedding = EmbeddingUtils.cut(embedding);
-                String embeddingStr = Arrays.toString(embedding);
-                houseVecMapper.updateHouseVec(house.getId(), embeddingStr);
-            }
-        } catch (Exception e) {
-            log.error(HouseConstant.FAIL_UPDATE, e.getMessage());
-            throw new RuntimeException(e);
+        if (houseMapper.updateById(house) > 0) {
+            houseVecOutboxMapper.enqueue(id);
+            eventPublisher.publishEvent(new HouseChangedEvent(id));
         }
     }
 
 
     private QueryWrapper<House> buildQueryWrapper(HouseQueryDTO queryVO) {
+        QueryWrapper<House> queryWrapper = buildFilterWrapper(queryVO);
+
+        if (queryVO != null) {
+            // 排序
+            if (StringUtils.hasText(queryVO.getSortBy())) {
+                switch (queryVO.getSortBy()) {
+                    case "price-asc":
+                        queryWrapper.orderByAsc("price");
+                        break;
+                    case "price-desc":
+                        queryWrapper.orderByDesc("price");
+                        break;
+                    case "area-asc":
+                        queryWrapper.orderByAsc("area");
+                        break;
+                    case "area-desc":
+                        queryWrapper.orderByDesc("area");
+                        break;
+                    case "time-desc":
+                    default:
+                        queryWrapper.orderByDesc("created_at");
+                        break;
+                }
+            } else {
+                queryWrapper.orderByDesc("created_at");
+            }
+        }
+
+        return queryWrapper;
+    }
+
+    /**
+     * 只包含筛选条件、不含排序的查询条件，列名不带表前缀，可直接拼接到与 houses_vec 的联表查询中
+     */
+    private QueryWrapper<House> buildFilterWrapper(HouseQueryDTO queryVO) {
         QueryWrapper<House> queryWrapper = new QueryWrapper<>();
 
         if (queryVO != null) {
@@ -225,30 +384,6 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
             if (queryVO.getMaxYear() != null) {
                 queryWrapper.le("build_year", queryVO.getMaxYear());
             }
-
-            // 排序
-            if (StringUtils.hasText(queryVO.getSortBy())) {
-                switch (queryVO.getSortBy()) {
-                    case "price-asc":
-                        queryWrapper.orderByAsc("price");
-                        break;
-                    case "price-desc":
-                        queryWrapper.orderByDesc("price");
-                        break;
-                    case "area-asc":
-                        queryWrapper.orderByAsc("area");
-                        break;
-                    case "area-desc":
-                        queryWrapper.orderByDesc("area");
-                        break;
-                    case "time-desc":
-                    default:
-                        queryWrapper.orderByDesc("created_at");
-                        break;
-                }
-            } else {
-                queryWrapper.orderByDesc("created_at");
-            }
         }
 
         return queryWrapper;
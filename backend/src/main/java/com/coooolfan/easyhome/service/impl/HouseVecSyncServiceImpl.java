@@ -0,0 +1,198 @@
+package com.coooolfan.easyhome.service.impl;
+
+import com.coooolfan.easyhome.mapper.HouseMapper;
+import com.coooolfan.easyhome.mapper.HouseVecMapper;
+import com.coooolfan.easyhome.mapper.HouseVecOutboxMapper;
+import com.coooolfan.easyhome.message.HouseChangedEvent;
+import com.coooolfan.easyhome.pojo.entity.House;
+import com.coooolfan.easyhome.pojo.entity.HouseVecOutbox;
+import com.coooolfan.easyhome.service.HouseVecSyncService;
+import com.coooolfan.easyhome.utils.EasyHomeUtils;
+import com.coooolfan.easyhome.utils.EmbeddingUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.noear.solon.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HouseVecSyncServiceImpl implements HouseVecSyncService {
+
+    private final HouseMapper houseMapper;
+
+    private final HouseVecMapper houseVecMapper;
+
+    private final HouseVecOutboxMapper houseVecOutboxMapper;
+
+    private final EmbeddingModel embeddingModel;
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final ExecutorService ragExecutor;
+
+    @Value("${embed.model}")
+    private String model;
+
+    @Value("${embed.batch-size:64}")
+    private int batchSize;
+
+    /**
+     * 认领租约，超过该时间未完成的记录可被其他节点重新认领
+     */
+    @Value("${embed.outbox.lease:60s}")
+    private Duration lease;
+
+    @Value("${embed.outbox.base-backoff:5s}")
+    private Duration baseBackoff;
+
+    @Value("${embed.outbox.max-backoff:10m}")
+    private Duration maxBackoff;
+
+    /**
+     * 本节点同一时间只有一个线程在消费，跨节点由 SKIP LOCKED 保证不重复认领
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    /**
+     * 消费进行中又有新的触发时置位，当前线程结束前会再扫描一轮
+     */
+    private final AtomicBoolean requested = new AtomicBoolean(false);
+
+    /**
+     * 房源写入提交后立即触发一次消费，定时任务只负责兜底与重试
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHouseChanged(HouseChangedEvent event) {
+        ragExecutor.execute(this::drain);
+    }
+
+    @Scheduled(fixedDelayString = "${embed.outbox.poll-interval:5000}")
+    public void poll() {
+        drain();
+    }
+
+    @Override
+    public int drain() {
+        requested.set(true);
+        if (!draining.compareAndSet(false, true)) {
+            return 0;
+        }
+        int embedded = 0;
+        try {
+            while (requested.getAndSet(false)) {
+                List<HouseVecOutbox> claimed;
+                do {
+                    claimed = houseVecOutboxMapper.claim(batchSize, lease.toSeconds());
+                    if (!claimed.isEmpty()) {
+                        embedded += processBatch(claimed);
+                    }
+                } while (claimed.size() == batchSize);
+            }
+        } catch (Exception e) {
+            log.error("房源向量同步失败", e);
+        } finally {
+            draining.set(false);
+        }
+        return embedded;
+    }
+
+    /**
+     * 一次请求向量化整批房源，数据库只在回写阶段短暂占用连接
+     */
+    private int processBatch(List<HouseVecOutbox> batch) {
+        Map<Long, House> houses = houseMapper.selectBatchIds(batch.stream().map(HouseVecOutbox::getHouseId).toList())
+                .stream().collect(Collectors.toMap(House::getId, Function.identity()));
+
+        // 房源已被删除，清理可能残留的向量
+        List<HouseVecOutbox> pending = new ArrayList<>();
+        for (HouseVecOutbox item : batch) {
+            if (houses.containsKey(item.getHouseId())) {
+                pending.add(item);
+            } else {
+                houseVecMapper.deleteByHouseId(item.getHouseId());
+                finish(item);
+            }
+        }
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        // 向量化文本与模型均未变化的房源(如只改了图片)无需重新向量化
+        Map<Long, String> fingerprints = pending.stream().collect(Collectors.toMap(HouseVecOutbox::getHouseId,
+                item -> EasyHomeUtils.embeddingFingerprint(model, houses.get(item.getHouseId()))));
+        Map<Long, String> current = houseVecMapper.selectContentHashes(fingerprints.keySet());
+        List<HouseVecOutbox> unchanged = pending.stream()
+                .filter(item -> fingerprints.get(item.getHouseId()).equals(current.get(item.getHouseId())))
+                .toList();
+        unchanged.forEach(this::finish);
+        pending.removeAll(unchanged);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            String[] texts = pending.stream()
+                    .map(item -> EasyHomeUtils.toString(houses.get(item.getHouseId())))
+                    .toArray(String[]::new);
+            val data = embeddingModel.input(texts).call().getData();
+            if (data == null || data.size() != pending.size()) {
+                throw new IllegalStateException("向量化结果数量与请求不一致");
+            }
+
+            try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+                HouseVecMapper batchMapper = session.getMapper(HouseVecMapper.class);
+                for (int i = 0; i < pending.size(); i++) {
+                    float[] embedding = EmbeddingUtils.cut(data.get(i).getEmbedding());
+                    Long houseId = pending.get(i).getHouseId();
+                    batchMapper.upsertHouseVec(houseId, embedding, fingerprints.get(houseId));
+                }
+                session.flushStatements();
+                session.commit();
+            }
+        } catch (Exception e) {
+            log.warn("房源向量批次处理失败, 条数: {}, 起始ID: {}, 原因: {}",
+                    pending.size(), pending.getFirst().getHouseId(), e.getMessage());
+            pending.forEach(item -> retryLater(item, e));
+            return 0;
+        }
+
+        pending.forEach(this::finish);
+        log.info("已异步写入 {} 条房源向量, 指纹未变跳过 {} 条", pending.size(), unchanged.size());
+        return pending.size();
+    }
+
+    private void finish(HouseVecOutbox item) {
+        if (houseVecOutboxMapper.complete(item.getHouseId(), item.getVersion()) == 0) {
+            // 处理期间房源再次变更，保留记录等待下一轮
+            houseVecOutboxMapper.release(item.getHouseId());
+        }
+    }
+
+    /**
+     * 指数退避，最长不超过 max-backoff
+     */
+    private void retryLater(HouseVecOutbox item, Exception e) {
+        int attempts = item.getAttempts() == null ? 0 : item.getAttempts();
+        long delay = Math.min(baseBackoff.toSeconds() << Math.min(attempts, 20), maxBackoff.toSeconds());
+        if (houseVecOutboxMapper.fail(item.getHouseId(), item.getVersion(), String.valueOf(e.getMessage()), delay) == 0) {
+            houseVecOutboxMapper.release(item.getHouseId());
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.coooolfan.easyhome.service.impl;
+
+import com.coooolfan.easyhome.constant.ChatIntent;
+import com.coooolfan.easyhome.constant.LLMConstant;
+import com.coooolfan.easyhome.service.EmbeddingService;
+import com.coooolfan.easyhome.service.IntentService;
+import com.coooolfan.easyhome.service.PromptMemoService;
+import com.coooolfan.easyhome.utils.ChatMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.noear.solon.ai.chat.ChatModel;
+import org.noear.solon.ai.chat.ChatResponse;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IntentServiceImpl implements IntentService {
+
+    private final EmbeddingService embeddingService;
+
+    private final ChatModel chatModel;
+
+    private final Scheduler ragScheduler;
+
+    private final ChatMetrics chatMetrics;
+
+    private final PromptMemoService promptMemoService;
+
+    /**
+     * 是否启用本地分类，关闭后每轮都调用模型
+     */
+    @Value("${llm.intent.local-enabled:true}")
+    private boolean localEnabled;
+
+    /**
+     * 最高得分低于该值时交给模型判断
+     */
+    @Value("${llm.intent.min-score:0.45}")
+    private double minScore;
+
+    /**
+     * 最高得分与次高得分之差低于该值时交给模型判断
+     */
+    @Value("${llm.intent.margin:0.08}")
+    private double margin;
+
+    /**
+     * 本地已判定的问题中，按该比例在后台同时调用模型，统计两者的一致率
+     */
+    @Value("${llm.intent.shadow-rate:0.05}")
+    private double shadowRate;
+
+    /**
+     * 各意图样例的向量，启动后在后台预先加载，加载失败时在首次分类时重试；样例向量经 EmbeddingService 缓存
+     */
+    private volatile Map<ChatIntent, List<float[]>> prototypes;
+
+    /**
+     * 分类运行在虚拟线程上，加载样例时使用 ReentrantLock，等待期间不会占住载体线程
+     */
+    private final ReentrantLock prototypeLock = new ReentrantLock();
+
+    /**
+     * 本地分类结果
+     *
+     * @param intent    得分最高的意图
+     * @param score     最高得分
+     * @param gap       与次高得分之差
+     * @param confident 是否可以直接采用
+     */
+    record LocalResult(ChatIntent intent, double score, double gap, boolean confident) {
+    }
+
+    @Override
+    public Mono<ChatIntent> classify(String historyPrompt, String question) {
+        Mono<ChatIntent> byModel = chatMetrics.time("intent.model", classifyByModel(historyPrompt, question));
+        if (!localEnabled) {
+            return byModel;
+        }
+        return Mono.fromCallable(() -> classifyLocally(historyPrompt != null, question))
+                .subscribeOn(ragScheduler)
+                .flatMap(local -> {
+                    if (!local.confident()) {
+                        chatMetrics.increment("intent.fallback");
+                        // 记录不确定区间内本地结果与模型的一致情况，用于调整阈值
+                        return byModel.doOnNext(intent -> chatMetrics.increment(
+                                intent == local.intent() ? "intent.fallback.agree" : "intent.fallback.disagree"));
+                    }
+                    chatMetrics.increment("intent.local");
+                    if (ThreadLocalRandom.current().nextDouble() < shadowRate) {
+                        shadow(byModel, local, question);
+                    }
+                    return Mono.just(local.intent());
+                })
+                .onErrorResume(e -> {
+                    log.warn("本地意图分类失败，改用模型判断: {}", e.getMessage());
+                    chatMetrics.increment("intent.fallback");
+                    return byModel;
+                });
+    }
+
+    private LocalResult classifyLocally(boolean hasHistory, String question) {
+        Map<ChatIntent, List<float[]>> vectors = loadPrototypes();
+        float[] query = embeddingService.embed(question);
+
+        long start = System.nanoTime();
+        ChatIntent best = null;
+        double bestScore = -1;
+        double secondScore = -1;
+        for (Map.Entry<ChatIntent, List<float[]>> entry : vectors.entrySet()) {
+            double score = -1;
+            for (float[] prototype : entry.getValue()) {
+                score = Math.max(score, cosine(query, prototype));
+            }
+            if (score > bestScore) {
+                secondScore = bestScore;
+                bestScore = score;
+                best = entry.getKey();
+            } else if (score > secondScore) {
+                secondScore = score;
+            }
+        }
+        chatMetrics.record("intent.score", System.nanoTime() - start);
+
+        double gap = bestScore - secondScore;
+        // MORE 依赖上下文：有历史时用户可能只是在补充条件，交给模型结合历史判断
+        boolean confident = bestScore >= minScore && gap >= margin && !(hasHistory && best == ChatIntent.MORE);
+        return new LocalResult(best, bestScore, gap, confident);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!localEnabled) {
+            return;
+        }
+        ragScheduler.schedule(() -> {
+            try {
+                loadPrototypes();
+            } catch (Exception e) {
+                log.warn("意图样例向量预加载失败，将在首次分类时重试: {}", e.getMessage());
+            }
+        });
+    }
+
+    private Map<ChatIntent, List<float[]>> loadPrototypes() {
+        Map<ChatIntent, List<float[]>> loaded = prototypes;
+        if (loaded != null) {
+            return loaded;
+        }
+        prototypeLock.lock();
+        try {
+            loaded = prototypes;
+            if (loaded == null) {
+                // 全部样例合并为一次向量化请求，按意图顺序切分回各自的列表
+                List<String> texts = new ArrayList<>();
+                LLMConstant.INTENT_PROTOTYPES.values().forEach(texts::addAll);
+                List<float[]> vectors = embeddingService.embedAll(texts);
+                loaded = new EnumMap<>(ChatIntent.class);
+                int offset = 0;
+                for (Map.Entry<ChatIntent, List<String>> entry : LLMConstant.INTENT_PROTOTYPES.entrySet()) {
+                    int size = entry.getValue().size();
+                    loaded.put(entry.getKey(), List.copyOf(vectors.subList(offset, offset + size)));
+                    offset += size;
+                }
+                prototypes = loaded;
+                log.info("意图样例向量加载完成, 共 {} 条", texts.size());
+            }
+            return loaded;
+        } finally {
+            prototypeLock.unlock();
+        }
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / Math.sqrt(normA * normB);
+    }
+
+    /**
+     * 在后台调用模型复核本地结果，不影响本轮响应
+     */
+    private void shadow(Mono<ChatIntent> byModel, LocalResult local, String question) {
+        byModel.subscribe(intent -> {
+            if (intent == local.intent()) {
+                chatMetrics.increment("intent.shadow.agree");
+            } else {
+                chatMetrics.increment("intent.shadow.disagree");
+                log.info("意图分类与模型不一致, 本地: {}({}, 差值 {}), 模型: {}, 问题: {}",
+                        local.intent(), local.score(), local.gap(), intent, question);
+            }
+        }, e -> log.debug("意图复核失败: {}", e.getMessage()));
+    }
+
+    private Mono<ChatIntent> classifyByModel(String historyPrompt, String question) {
+        String prompt = String.format(LLMConstant.SYSTEM_INTERCEPT_MESSAGE,
+                historyPrompt == null ? "NONE" : historyPrompt, question);
+        return promptMemoService.memoize("intercept", prompt, () -> Flux.defer(() -> streamOf(prompt))
+                        .last()
+                        .map(resp -> resp.getAggregationMessage().getContent()))
+                .map(content -> {
+                    if (content.contains("AGAIN")) {
+                        return ChatIntent.AGAIN;
+                    }
+                    return content.contains("MORE") ? ChatIntent.MORE : ChatIntent.CONTINUE;
+                });
+    }
+
+    @SneakyThrows
+    private Publisher<ChatResponse> streamOf(String prompt) {
+        return chatModel.prompt(prompt).stream();
+    }
+}
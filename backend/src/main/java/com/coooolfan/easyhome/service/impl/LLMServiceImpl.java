@@ -3,113 +3,326 @@ package com.coooolfan.easyhome.service.impl;
 import com.coooolfan.easyhome.constant.LLMConstant;
 import com.coooolfan.easyhome.pojo.dto.LLMStreamDTO;
 import com.coooolfan.easyhome.pojo.dto.StreamChatResp;
-import com.coooolfan.easyhome.service.CommonKnowledgeVecService;
-import com.coooolfan.easyhome.service.HouseService;
+import com.coooolfan.easyhome.service.ChatHistoryService;
+import com.coooolfan.easyhome.service.ChatSessionStore;
+import com.coooolfan.easyhome.service.IntentService;
 import com.coooolfan.easyhome.service.LLMService;
+import com.coooolfan.easyhome.service.RagService;
+import com.coooolfan.easyhome.utils.ChatMetrics;
 import com.coooolfan.easyhome.utils.ChatSession;
-import lombok.AllArgsConstructor;
+import com.coooolfan.easyhome.utils.ChatStreamRelay;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import lombok.val;
 import org.noear.solon.ai.chat.ChatModel;
+import org.noear.solon.ai.chat.ChatResponse;
+import org.noear.solon.ai.chat.message.AssistantMessage;
 import org.noear.solon.ai.chat.message.ChatMessage;
 import org.noear.solon.ai.chat.message.SystemMessage;
 import org.noear.solon.ai.chat.message.UserMessage;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.RequestBody;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static com.coooolfan.easyhome.constant.LLMConstant.BUSY_STREAM_CHAT_RESP;
 import static com.coooolfan.easyhome.constant.LLMConstant.MORE_STEAM_CHAT_RESP;
 import static com.coooolfan.easyhome.constant.LLMConstant.REJECT_STREAM_CHAT_RESP;
 
 @Slf4j
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class LLMServiceImpl implements LLMService {
 
-    private final static ConcurrentHashMap<String, ChatSession> chatMap = new ConcurrentHashMap<>();
-    private final CommonKnowledgeVecService commonKnowledgeVecService;
+    private final ChatSessionStore chatSessionStore;
 
-    private HouseService houseService;
+    private final ChatHistoryService chatHistoryService;
 
-    private ChatModel chatModel;
+    private final RagService ragService;
+
+    private final IntentService intentService;
+
+    private final ChatModel chatModel;
+
+    private final ChatMetrics chatMetrics;
+
+    /**
+     * 是否在意图拦截的同时预先发起检索，拦截命中时取消检索
+     */
+    @Value("${llm.speculative-retrieval:true}")
+    private boolean speculativeRetrieval;
+
+    /**
+     * 单个连接最多积压的未发送事件数
+     */
+    @Value("${llm.stream.max-buffered-events:256}")
+    private int maxBufferedEvents;
+
+    /**
+     * 每轮回答保留用于断线续传的最近事件数
+     */
+    @Value("${llm.stream.replay-size:512}")
+    private int replaySize;
+
+    /**
+     * 所有连接断开后等待重连的时间，超时后取消模型流
+     */
+    @Value("${llm.stream.resume-grace:30s}")
+    private Duration resumeGrace;
+
+    /**
+     * 回答结束后仍可续传的时间
+     */
+    @Value("${llm.stream.replay-ttl:10m}")
+    private Duration replayTtl;
+
+    /**
+     * 本节点最多保留的中继数，超出时淘汰最久未用的，被淘汰的轮次不影响仍在连接的客户端，只是无法再续传
+     */
+    @Value("${llm.stream.max-relays:1000}")
+    private long maxRelays;
+
+    /**
+     * 会话ID -> 最近一轮回答的中继，仅保存在本节点；本轮结束时重新写入，保留期从回答结束起算
+     */
+    private Cache<String, ChatStreamRelay> relays;
+
+    @PostConstruct
+    public void init() {
+        relays = Caffeine.newBuilder()
+                .maximumSize(maxRelays)
+                .expireAfterWrite(replayTtl)
+                .build();
+    }
 
     @Override
-    @SneakyThrows
-    public Flux<StreamChatResp> stream(@RequestBody LLMStreamDTO message) {
+    public Flux<ServerSentEvent<StreamChatResp>> stream(@RequestBody LLMStreamDTO message) {
+        long start = System.nanoTime();
+        // 同一会话同一时刻只处理一轮对话，回答过程中再次发送的消息直接拒绝，不写入聊天记录
+        if (!chatSessionStore.tryLockTurn(message.getUuid())) {
+            chatMetrics.increment("turn.rejected");
+            return Flux.just(ServerSentEvent.builder(BUSY_STREAM_CHAT_RESP).event("done").build());
+        }
+        ChatTurn turn = new ChatTurn(message.getUuid());
+        Flux<StreamChatResp> source;
+        try {
+            source = doStream(message, turn, start)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.ON_COMPLETE) {
+                            chatMetrics.increment("stream.completed");
+                        } else {
+                            // 所有连接断开超过宽限期或出错：取消信号已向上游模型流传播，保存已生成的部分回答并结束会话状态
+                            chatMetrics.increment(signal == SignalType.CANCEL ? "stream.cancelled" : "stream.failed");
+                            settleInterrupted(turn);
+                        }
+                        turn.release();
+                    });
+        } catch (RuntimeException e) {
+            turn.release();
+            throw e;
+        }
+        // 模型流由中继订阅，客户端连接只是中继的订阅者，断线后可凭 Last-Event-ID 续传
+        ChatStreamRelay relay = new ChatStreamRelay(Long.toString(start, 36), replaySize, maxBufferedEvents,
+                resumeGrace, () -> chatMetrics.increment("stream.overflow"));
+        relays.put(message.getUuid(), relay);
+        Flux<ServerSentEvent<StreamChatResp>> events = relay.subscribe(null);
+        relay.start(source.doFinally(signal -> relays.asMap().replace(message.getUuid(), relay, relay)));
+        return events;
+    }
+
+    @Override
+    public Flux<ServerSentEvent<StreamChatResp>> resume(String uuid, String lastEventId) {
+        ChatStreamRelay relay = relays.getIfPresent(uuid);
+        if (relay == null) {
+            // 本轮已过保留期或不在本节点，客户端需重新提问
+            return Flux.just(ServerSentEvent.<StreamChatResp>builder().event("expired").build());
+        }
+        chatMetrics.increment("stream.resumed");
+        return relay.subscribe(lastEventId);
+    }
+
+    private Flux<StreamChatResp> doStream(LLMStreamDTO message, ChatTurn turn, long start) {
         ArrayList<ChatMessage> chatHistory;
         ChatSession chatSession;
-        if (chatMap.containsKey(message.getUuid())) {
-            chatSession = chatMap.get(message.getUuid());
-            chatSession.setSteaming(true);
-            // 浅拷贝聊天记录
-            chatHistory = new ArrayList<>(chatSession.getChatContent());
-            // 向聊天记录中添加用户消息 RAG消息不需要添加
-            chatSession.getChatContent().add(new UserMessage(message.getMessage()));
-            val interceptResp = chatModel.prompt(
-                    String.format(
-                            LLMConstant.SYSTEM_INTERCEPT_MESSAGE,
-                            HouseServiceImpl.getPromptBuilder(chatMap.get(message.getUuid()).getChatContent()),
-                            message.getMessage()
-                    )).call().getMessage().getContent();
-            if (interceptResp.contains("AGAIN")) {
-                chatSession.getChatContent().add(REJECT_STREAM_CHAT_RESP.toChatMessage());
-                return Flux.just(REJECT_STREAM_CHAT_RESP);
-            } else if (interceptResp.contains("MORE")) {
-                chatSession.getChatContent().add(MORE_STEAM_CHAT_RESP.toChatMessage());
-                return Flux.just(MORE_STEAM_CHAT_RESP);
-            }
-            // 拼接RAG 与 用户的新消息 发送至LLM
-            chatHistory.add(new UserMessage(
-                    houseService.getHousesDescByVectorSearch(chatHistory, new UserMessage(message.getMessage()), 5) + "\n"
-                            + commonKnowledgeVecService.getCommonKnowledgeDescByVectorSearch(chatHistory, new UserMessage(message.getMessage()), 5) + "\n"
-                            + message.getMessage()));
-
+        ChatSession storedSession = chatSessionStore.get(message.getUuid());
+        if (storedSession != null) {
+            chatSession = storedSession;
         } else {
-
-            chatSession = new ChatSession(message.getUuid(), false, new ArrayList<>());
+            chatSession = new ChatSession(message.getUuid(), false, new CopyOnWriteArrayList<>(), null);
             chatSession.getChatContent().add(new SystemMessage(LLMConstant.SYSTEM_MESSAGE));
-            chatSession.setSteaming(true);
-            // 浅拷贝聊天记录
-            chatHistory = new ArrayList<>(chatSession.getChatContent());
-            // 向聊天记录中添加用户消息 RAG消息不需要添加
-            chatSession.getChatContent().add(new UserMessage(message.getMessage()));
-            chatMap.put(message.getUuid(), chatSession);
-            val interceptResp = chatModel.prompt(String.format(LLMConstant.SYSTEM_INTERCEPT_MESSAGE, "NONE", message.getMessage())).call().getMessage().getContent();
-            if (interceptResp.contains("AGAIN")) {
-                chatMap.get(message.getUuid()).getChatContent().add(REJECT_STREAM_CHAT_RESP.toChatMessage());
-                return Flux.just(REJECT_STREAM_CHAT_RESP);
-            } else if (interceptResp.contains("MORE")) {
-                chatMap.get(message.getUuid()).getChatContent().add(MORE_STEAM_CHAT_RESP.toChatMessage());
-                return Flux.just(MORE_STEAM_CHAT_RESP);
-            }
-            // 拼接RAG 与 用户的新消息 发送至LLM
-            chatHistory.add(new UserMessage(
-                    houseService.getHousesDescByVectorSearch(new UserMessage(message.getMessage()), 5) + "\n"
-                            + commonKnowledgeVecService.getCommonKnowledgeDescByVectorSearch(new UserMessage(message.getMessage()), 5) + "\n"
-                            + message.getMessage()));
         }
-        log.info("Start stream chat {} connection", message.getUuid());
-        return Flux.from(chatModel.prompt(chatHistory).stream())
-                .map(resp -> {
-                    if (resp.isFinished()) {
-                        chatSession.getChatContent().add(resp.getAggregationMessage());
+        chatSession.setSteaming(true);
+        turn.session = chatSession;
+        // 压缩后的历史：系统消息 + 摘要 + 预算内的最近消息，意图拦截与问题改写共用同一份历史文本
+        chatHistory = chatHistoryService.window(chatSession);
+        String historyPrompt = chatHistoryService.promptHistory(chatSession);
+        // 向聊天记录中添加用户消息 RAG消息不需要添加
+        chatSession.getChatContent().add(new UserMessage(message.getMessage()));
+        chatSessionStore.save(chatSession);
+
+        UserMessage question = new UserMessage(message.getMessage());
+        Mono<String> retrieval = ragService.retrieve(historyPrompt, question, 5);
+        // 预取时立即订阅检索，拦截命中或连接断开时取消
+        CompletableFuture<String> speculative = speculativeRetrieval ? retrieval.toFuture() : null;
+
+        return chatMetrics.time("intercept", intentService.classify(historyPrompt, message.getMessage()))
+                .flatMapMany(intent -> {
+                    StreamChatResp rejectResp = switch (intent) {
+                        case AGAIN -> REJECT_STREAM_CHAT_RESP;
+                        case MORE -> MORE_STEAM_CHAT_RESP;
+                        case CONTINUE -> null;
+                    };
+                    if (rejectResp != null) {
+                        if (speculative != null && speculative.cancel(true)) {
+                            chatMetrics.increment("retrieval.cancelled");
+                        }
+                        turn.settled.set(true);
+                        chatSession.getChatContent().add(rejectResp.toChatMessage());
+                        chatSession.setSteaming(false);
+                        chatSessionStore.save(chatSession);
+                        return Flux.just(rejectResp);
                     }
-                    log.info("{}:isfinished:{},content: {}", message.getUuid(), resp.isFinished(), resp.getMessage().getContent());
-                    return new StreamChatResp(
-                            resp.getMessage().getContent(),
-                            "Assistant",
-                            resp.isFinished(),
-                            resp.getAggregationMessage().getContent()
-                    );
+                    // 拼接RAG 与 用户的新消息 发送至LLM
+                    Mono<String> ragContext = speculative != null ? Mono.fromFuture(speculative) : retrieval;
+                    return chatMetrics.time("retrieval.wait", ragContext)
+                            .flatMapMany(context -> {
+                                chatHistory.add(new UserMessage(context + "\n" + message.getMessage()));
+                                log.info("Start stream chat {} connection", message.getUuid());
+                                return streamChat(message, turn, chatSession, chatHistory, start);
+                            });
                 })
+                .doOnCancel(() -> {
+                    if (speculative != null) {
+                        speculative.cancel(true);
+                    }
+                });
+    }
+
+    private Flux<StreamChatResp> streamChat(LLMStreamDTO message, ChatTurn turn, ChatSession chatSession,
+                                            ArrayList<ChatMessage> chatHistory, long start) {
+        AtomicBoolean firstToken = new AtomicBoolean(true);
+        AtomicReference<ChatResponse> last = new AtomicReference<>();
+        return Flux.from(streamOf(chatHistory))
+                .doOnNext(resp -> {
+                    if (firstToken.compareAndSet(true, false)) {
+                        long ttft = System.nanoTime() - start;
+                        chatMetrics.record("first-token", ttft);
+                        log.info("{}:first token after {} ms", message.getUuid(), ttft / 1_000_000);
+                    }
+                    last.set(resp);
+                    log.debug("{}:isfinished:{},content: {}", message.getUuid(), resp.isFinished(), resp.getMessage().getContent());
+                })
+                // 回答过程中只发送增量，完整回答在结束时单独发送一次
+                .filter(resp -> StringUtils.hasLength(resp.getMessage().getContent()))
+                .map(resp -> {
+                    turn.partial.append(resp.getMessage().getContent());
+                    return StreamChatResp.delta(resp.getMessage().getContent());
+                })
+                .concatWith(Mono.fromSupplier(() -> {
+                    ChatResponse resp = last.get();
+                    if (resp == null || !turn.settled.compareAndSet(false, true)) {
+                        return null;
+                    }
+                    chatSession.getChatContent().add(resp.getAggregationMessage());
+                    return StreamChatResp.done(resp.getAggregationMessage().getContent());
+                }))
                 .doOnComplete(() -> {
                     chatSession.setSteaming(false);
+                    chatSessionStore.save(chatSession);
                     log.info("stream chat {} connection closed", message.getUuid());
+                    // 回答保存后本轮即释放，摘要在后台生成，写回时再短暂占用会话
+                    chatHistoryService.summarize(chatSession)
+                            .subscribe(fold -> applyFold(message.getUuid(), fold));
                 });
+    }
 
+    /**
+     * 把后台生成的摘要写回会话；会话正在回答下一轮或在此期间已变化时放弃本次摘要，由之后的轮次重新合并
+     */
+    private void applyFold(String uuid, ChatHistoryService.HistoryFold fold) {
+        if (!chatSessionStore.tryLockTurn(uuid)) {
+            chatMetrics.increment("summary.dropped");
+            log.info("chat session {} is busy, drop summary", uuid);
+            return;
+        }
+        try {
+            ChatSession current = chatSessionStore.get(uuid);
+            if (current != null && chatHistoryService.applyFold(current, fold)) {
+                chatSessionStore.save(current);
+            } else {
+                chatMetrics.increment("summary.dropped");
+                log.info("chat session {} changed while summarizing, drop summary", uuid);
+            }
+        } finally {
+            chatSessionStore.unlockTurn(uuid);
+        }
+    }
+
+    /**
+     * 本轮未正常结束时，把已发送给客户端的部分回答写入会话，并结束回答中状态
+     */
+    private void settleInterrupted(ChatTurn turn) {
+        ChatSession chatSession = turn.session;
+        if (chatSession == null) {
+            return;
+        }
+        // 完整回答已写入会话但尚未保存时被取消，只需补做保存
+        if (turn.settled.compareAndSet(false, true) && !turn.partial.isEmpty()) {
+            chatSession.getChatContent().add(new AssistantMessage(turn.partial.toString()));
+        }
+        chatSession.setSteaming(false);
+        chatSessionStore.save(chatSession);
+        log.info("stream chat {} interrupted, saved {} chars", turn.uuid, turn.partial.length());
+    }
+
+    @SneakyThrows
+    private Publisher<ChatResponse> streamOf(List<ChatMessage> messages) {
+        return chatModel.prompt(messages).stream();
+    }
+
+    /**
+     * 一轮对话占用的会话锁，保证只释放一次
+     */
+    private final class ChatTurn {
+        private final String uuid;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        /**
+         * 本轮使用的会话，进入对话流程后才有值
+         */
+        private volatile ChatSession session;
+        /**
+         * 已发送给客户端的回答内容，取消时用于保存部分回答
+         */
+        private final StringBuffer partial = new StringBuffer();
+        /**
+         * 本轮的回答是否已写入会话，正常结束与中断只会写入一次
+         */
+        private final AtomicBoolean settled = new AtomicBoolean(false);
+
+        ChatTurn(String uuid) {
+            this.uuid = uuid;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                chatSessionStore.unlockTurn(uuid);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package com.coooolfan.easyhome.service.impl;
+
+import com.coooolfan.easyhome.pojo.vo.SessionStoreStatsVO;
+import com.coooolfan.easyhome.service.ChatSessionStore;
+import com.coooolfan.easyhome.utils.ChatSession;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单机内存会话存储
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "llm.session.store", havingValue = "local", matchIfMissing = true)
+public class LocalChatSessionStore implements ChatSessionStore {
+
+    @Value("${llm.session.idle-ttl:2h}")
+    private Duration idleTtl;
+
+    @Value("${llm.session.max-sessions:10000}")
+    private long maxSessions;
+
+    @Value("${llm.session.max-messages:50}")
+    private int maxMessages;
+
+    @Value("${llm.session.max-tokens:8000}")
+    private int maxTokens;
+
+    @Value("${llm.session.turn-timeout:5m}")
+    private Duration turnTimeout;
+
+    private Cache<String, ChatSession> sessions;
+
+    /**
+     * 有进行中轮次的会话，与会话缓存分开保存，不受淘汰影响；超过 turn-timeout 自动释放，
+     * 避免某一轮异常挂起后会话一直处于占用状态
+     */
+    private Cache<String, Boolean> activeTurns;
+
+    private final LongAdder evictedBySize = new LongAdder();
+    private final LongAdder evictedByIdle = new LongAdder();
+    private final LongAdder trimmedMessages = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(idleTtl)
+                .removalListener((String uuid, ChatSession session, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        evictedBySize.increment();
+                    } else if (cause == RemovalCause.EXPIRED) {
+                        evictedByIdle.increment();
+                    }
+                })
+                .build();
+        activeTurns = Caffeine.newBuilder()
+                .expireAfterWrite(turnTimeout)
+                .build();
+    }
+
+    @Override
+    public ChatSession get(String uuid) {
+        return sessions.getIfPresent(uuid);
+    }
+
+    @Override
+    public void save(ChatSession chatSession) {
+        int removed = chatSession.trim(maxMessages, maxTokens);
+        if (removed > 0) {
+            trimmedMessages.add(removed);
+            log.info("chat session {} trimmed {} messages", chatSession.getUuid(), removed);
+        }
+        sessions.put(chatSession.getUuid(), chatSession);
+    }
+
+    @Override
+    public void remove(String uuid) {
+        sessions.invalidate(uuid);
+    }
+
+    @Override
+    public boolean tryLockTurn(String uuid) {
+        return activeTurns.asMap().putIfAbsent(uuid, Boolean.TRUE) == null;
+    }
+
+    @Override
+    public void unlockTurn(String uuid) {
+        activeTurns.invalidate(uuid);
+    }
+
+    @Override
+    public SessionStoreStatsVO getStats() {
+        return new SessionStoreStatsVO("local", sessions.estimatedSize(),
+                evictedBySize.sum(), evictedByIdle.sum(), trimmedMessages.sum());
+    }
+}
@@ -0,0 +1,121 @@
+package com.coooolfan.easyhome.service.impl;
+
+import com.coooolfan.easyhome.pojo.vo.CacheStatsVO;
+import com.coooolfan.easyhome.service.PromptMemoService;
+import com.coooolfan.easyhome.utils.EasyHomeUtils;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PromptMemoServiceImpl implements PromptMemoService {
+
+    private static final String REDIS_KEY_PREFIX = "easyhome:llm:memo:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final Scheduler ragScheduler;
+
+    @Value("${llm.model}")
+    private String model;
+
+    @Value("${llm.memo.local-size:10000}")
+    private long localSize;
+
+    @Value("${llm.memo.local-ttl:30m}")
+    private Duration localTtl;
+
+    /**
+     * 是否启用 Redis 缓存，多节点共享结果
+     */
+    @Value("${llm.memo.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${llm.memo.redis-ttl:1d}")
+    private Duration redisTtl;
+
+    /**
+     * 缓存的是进行中或已完成的调用，失败的调用会被 Caffeine 自动移除
+     */
+    private AsyncCache<String, String> localCache;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(localSize)
+                .expireAfterWrite(localTtl)
+                .buildAsync();
+    }
+
+    @Override
+    public Mono<String> memoize(String scope, String prompt, Supplier<Mono<String>> call) {
+        String key = scope + ":" + EasyHomeUtils.sha256Hex(model + "\n" + prompt);
+        return Mono.defer(() -> {
+            AtomicBoolean loaded = new AtomicBoolean(false);
+            CompletableFuture<String> future = localCache.get(key, (k, executor) -> {
+                loaded.set(true);
+                return load(k, call).toFuture();
+            });
+            // 命中已完成或进行中的相同调用
+            if (!loaded.get()) {
+                localHits.increment();
+            }
+            // 并发的相同调用共用同一个 future，某个订阅者取消不会取消共享的调用
+            return Mono.fromFuture(future, true);
+        });
+    }
+
+    private Mono<String> load(String key, Supplier<Mono<String>> call) {
+        Mono<String> remote = Mono.defer(call)
+                .doOnSubscribe(s -> misses.increment())
+                .flatMap(value -> store(key, value).thenReturn(value));
+        if (!redisEnabled) {
+            return remote;
+        }
+        return Mono.fromCallable(() -> stringRedisTemplate.opsForValue().get(REDIS_KEY_PREFIX + key))
+                .subscribeOn(ragScheduler)
+                .doOnNext(v -> redisHits.increment())
+                .onErrorResume(e -> {
+                    log.warn("读取模型调用缓存失败: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(remote);
+    }
+
+    private Mono<Void> store(String key, String value) {
+        if (!redisEnabled) {
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> stringRedisTemplate.opsForValue().set(REDIS_KEY_PREFIX + key, value, redisTtl))
+                .subscribeOn(ragScheduler)
+                .onErrorResume(e -> {
+                    log.warn("写入模型调用缓存失败: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public CacheStatsVO getCacheStats() {
+        return CacheStatsVO.of(localHits.sum(), redisHits.sum(), misses.sum(),
+                localCache.synchronous().estimatedSize());
+    }
+}
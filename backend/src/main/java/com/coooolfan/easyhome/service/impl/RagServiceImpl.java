@@ -0,0 +1,90 @@
+package com.coooolfan.easyhome.service.impl;
+
+import com.coooolfan.easyhome.constant.LLMConstant;
+import com.coooolfan.easyhome.service.CommonKnowledgeVecService;
+import com.coooolfan.easyhome.service.EmbeddingService;
+import com.coooolfan.easyhome.service.HouseService;
+import com.coooolfan.easyhome.service.PromptMemoService;
+import com.coooolfan.easyhome.service.RagService;
+import com.coooolfan.easyhome.utils.ChatMetrics;
+import com.coooolfan.easyhome.utils.EasyHomeUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.noear.solon.ai.chat.ChatModel;
+import org.noear.solon.ai.chat.ChatResponse;
+import org.noear.solon.ai.chat.message.ChatMessage;
+import org.reactivestreams.Publisher;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RagServiceImpl implements RagService {
+
+    private final HouseService houseService;
+
+    private final CommonKnowledgeVecService commonKnowledgeVecService;
+
+    private final EmbeddingService embeddingService;
+
+    private final ChatModel rewriteModel;
+
+    private final Scheduler ragScheduler;
+
+    private final ChatMetrics chatMetrics;
+
+    private final PromptMemoService promptMemoService;
+
+    @Override
+    public Mono<String> retrieve(String historyPrompt, ChatMessage question, int limit) {
+        Mono<String> retrieval = chatMetrics.time("rewrite", rewrite(historyPrompt, question))
+                .flatMap(query -> chatMetrics.time("embed",
+                                Mono.fromCallable(() -> embeddingService.embed(query)).subscribeOn(ragScheduler))
+                        // 向量检索与关键词检索按倒数排名融合，改写后的问题同时作为关键词
+                        .flatMap(embedding -> Mono.zip(
+                                Mono.fromCallable(() -> houseService.getHousesByHybridSearch(query, embedding, limit))
+                                        .subscribeOn(ragScheduler),
+                                Mono.fromCallable(() -> commonKnowledgeVecService.getCommonKnowledgeByHybridSearch(query, embedding, limit))
+                                        .subscribeOn(ragScheduler))))
+                .map(tuple -> {
+                    StringBuilder houseSb = new StringBuilder();
+                    for (val house : tuple.getT1()) {
+                        houseSb.append(EasyHomeUtils.toString(house)).append("\n");
+                    }
+                    StringBuilder knowledgeSb = new StringBuilder();
+                    for (val com : tuple.getT2()) {
+                        knowledgeSb.append(com).append("\n");
+                    }
+                    return wrap(houseSb) + "\n" + wrap(knowledgeSb);
+                });
+        return chatMetrics.time("retrieval", retrieval);
+    }
+
+    /**
+     * 结合历史记录把问题改写为独立问题，首轮对话直接使用原问题
+     */
+    private Mono<String> rewrite(String historyPrompt, ChatMessage question) {
+        if (historyPrompt == null) {
+            return Mono.just(question.getContent());
+        }
+        String ragPrompt = String.format(LLMConstant.RAG_REWRITE, historyPrompt, question.getContent());
+        return promptMemoService.memoize("rewrite", ragPrompt, () -> Flux.defer(() -> streamOf(ragPrompt))
+                .last()
+                .map(resp -> resp.getAggregationMessage().getContent()));
+    }
+
+    @SneakyThrows
+    private Publisher<ChatResponse> streamOf(String prompt) {
+        return rewriteModel.prompt(prompt).stream();
+    }
+
+    private static String wrap(CharSequence content) {
+        return String.format("<authoritative-information>\n%s\n</authoritative-information>", content);
+    }
+}
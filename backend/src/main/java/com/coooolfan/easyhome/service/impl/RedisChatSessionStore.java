@@ -0,0 +1,191 @@
+package com.coooolfan.easyhome.service.impl;
+
+import com.coooolfan.easyhome.pojo.vo.SessionStoreStatsVO;
+import com.coooolfan.easyhome.service.ChatSessionStore;
+import com.coooolfan.easyhome.utils.ChatSession;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.noear.solon.ai.chat.ChatRole;
+import org.noear.solon.ai.chat.message.AssistantMessage;
+import org.noear.solon.ai.chat.message.ChatMessage;
+import org.noear.solon.ai.chat.message.SystemMessage;
+import org.noear.solon.ai.chat.message.UserMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis 会话存储，多个后端节点共享会话
+ * <p>
+ * 会话以 JSON 存放并设置空闲过期时间，另用一个按最后访问时间排序的 ZSET 记录全部会话，用于限制会话总数。
+ * 淘汰计数只统计本节点触发的淘汰
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "llm.session.store", havingValue = "redis")
+public class RedisChatSessionStore implements ChatSessionStore {
+
+    private static final String KEY_PREFIX = "easyhome:chat:session:";
+
+    private static final String INDEX_KEY = "easyhome:chat:sessions";
+
+    private static final String LOCK_PREFIX = "easyhome:chat:lock:";
+
+    /**
+     * 只释放本节点持有的轮次锁
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${llm.session.idle-ttl:2h}")
+    private Duration idleTtl;
+
+    @Value("${llm.session.max-sessions:10000}")
+    private long maxSessions;
+
+    @Value("${llm.session.max-messages:50}")
+    private int maxMessages;
+
+    @Value("${llm.session.max-tokens:8000}")
+    private int maxTokens;
+
+    /**
+     * 轮次锁的过期时间，节点异常退出时锁最终会自动释放
+     */
+    @Value("${llm.session.turn-timeout:5m}")
+    private Duration turnTimeout;
+
+    private final String lockOwner = UUID.randomUUID().toString();
+
+    private final LongAdder evictedBySize = new LongAdder();
+    private final LongAdder evictedByIdle = new LongAdder();
+    private final LongAdder trimmedMessages = new LongAdder();
+
+    record StoredMessage(String role, String content) {
+    }
+
+    record StoredSession(String uuid, boolean steaming, List<StoredMessage> messages, String summary) {
+    }
+
+    @Override
+    public ChatSession get(String uuid) {
+        String json = stringRedisTemplate.opsForValue().getAndExpire(KEY_PREFIX + uuid, idleTtl);
+        if (json == null) {
+            stringRedisTemplate.opsForZSet().remove(INDEX_KEY, uuid);
+            return null;
+        }
+        stringRedisTemplate.opsForZSet().add(INDEX_KEY, uuid, System.currentTimeMillis());
+        try {
+            return fromStored(objectMapper.readValue(json, StoredSession.class));
+        } catch (JsonProcessingException e) {
+            log.warn("chat session {} 反序列化失败，已丢弃: {}", uuid, e.getMessage());
+            remove(uuid);
+            return null;
+        }
+    }
+
+    @Override
+    public void save(ChatSession chatSession) {
+        int removed = chatSession.trim(maxMessages, maxTokens);
+        if (removed > 0) {
+            trimmedMessages.add(removed);
+            log.info("chat session {} trimmed {} messages", chatSession.getUuid(), removed);
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(toStored(chatSession));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        stringRedisTemplate.opsForValue().set(KEY_PREFIX + chatSession.getUuid(), json, idleTtl);
+        stringRedisTemplate.opsForZSet().add(INDEX_KEY, chatSession.getUuid(), System.currentTimeMillis());
+        evict();
+    }
+
+    @Override
+    public void remove(String uuid) {
+        stringRedisTemplate.delete(KEY_PREFIX + uuid);
+        stringRedisTemplate.opsForZSet().remove(INDEX_KEY, uuid);
+    }
+
+    @Override
+    public boolean tryLockTurn(String uuid) {
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(LOCK_PREFIX + uuid, lockOwner, turnTimeout));
+    }
+
+    @Override
+    public void unlockTurn(String uuid) {
+        stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_PREFIX + uuid), lockOwner);
+    }
+
+    /**
+     * 清理索引中已空闲过期的会话，再按最久未访问淘汰超出上限的会话
+     */
+    private void evict() {
+        ZSetOperations<String, String> index = stringRedisTemplate.opsForZSet();
+        Long idle = index.removeRangeByScore(INDEX_KEY, 0, System.currentTimeMillis() - idleTtl.toMillis());
+        if (idle != null && idle > 0) {
+            evictedByIdle.add(idle);
+        }
+        Long size = index.zCard(INDEX_KEY);
+        if (size == null || size <= maxSessions) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> popped = index.popMin(INDEX_KEY, size - maxSessions);
+        if (popped == null) {
+            return;
+        }
+        for (ZSetOperations.TypedTuple<String> tuple : popped) {
+            stringRedisTemplate.delete(KEY_PREFIX + tuple.getValue());
+            evictedBySize.increment();
+        }
+    }
+
+    @Override
+    public SessionStoreStatsVO getStats() {
+        Long size = stringRedisTemplate.opsForZSet().zCard(INDEX_KEY);
+        return new SessionStoreStatsVO("redis", size == null ? 0 : size,
+                evictedBySize.sum(), evictedByIdle.sum(), trimmedMessages.sum());
+    }
+
+    private static StoredSession toStored(ChatSession chatSession) {
+        List<StoredMessage> messages = new ArrayList<>(chatSession.getChatContent().size());
+        for (ChatMessage chatMessage : chatSession.getChatContent()) {
+            messages.add(new StoredMessage(chatMessage.getRole().name(), chatMessage.getContent()));
+        }
+        return new StoredSession(chatSession.getUuid(), chatSession.isSteaming(), messages, chatSession.getSummary());
+    }
+
+    private static ChatSession fromStored(StoredSession stored) {
+        List<ChatMessage> chatContent = new ArrayList<>(stored.messages().size());
+        for (StoredMessage message : stored.messages()) {
+            chatContent.add(switch (ChatRole.valueOf(message.role())) {
+                case SYSTEM -> new SystemMessage(message.content());
+                case ASSISTANT -> new AssistantMessage(message.content());
+                default -> new UserMessage(message.content());
+            });
+        }
+        return new ChatSession(stored.uuid(), stored.steaming(), new CopyOnWriteArrayList<>(chatContent), stored.summary());
+    }
+}
@@ -1,20 +1,25 @@
 package com.coooolfan.easyhome.service.impl;
 
 import cn.dev33.satoken.secure.SaSecureUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.coooolfan.easyhome.constant.AuthConstant;
+import com.coooolfan.easyhome.constant.CountMode;
 import com.coooolfan.easyhome.exception.RegisterException;
 import com.coooolfan.easyhome.mapper.SysUserMapper;
 import com.coooolfan.easyhome.pojo.dto.*;
 import com.coooolfan.easyhome.pojo.entity.House;
 import com.coooolfan.easyhome.pojo.entity.SysUser;
 import com.coooolfan.easyhome.pojo.vo.UserVO;
+import com.coooolfan.easyhome.service.CountService;
 import com.coooolfan.easyhome.service.SysUserService;
+import jakarta.annotation.Resource;
 import jakarta.security.auth.message.AuthException;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -29,6 +34,12 @@ public class SysUserServiceImpl
         extends ServiceImpl<SysUserMapper, SysUser>
         implements SysUserService {
 
+    @Resource
+    private CountService countService;
+
+    @Value("${count.mode.user-page:NONE}")
+    private CountMode userPageCountMode;
+
     @Override
     public Long login(LoginDTO loginDTO) throws AuthException {
         String password = loginDTO.getPassword();
@@ -132,15 +143,21 @@ public class SysUserServiceImpl
 
     @Override
     public List<SysUser> getUsersByPage(Page<SysUser> page, UserQueryDTO userQueryDTO) {
-        return this.lambdaQuery()
+        // 总数由 CountService 按配置的方式统计，接口只返回记录时配置为 NONE 即可省去 COUNT
+        page.setSearchCount(false);
+        List<SysUser> users = this.page(page, buildUserFilter(userQueryDTO).orderByDesc(SysUser::getCreatedAt))
+                .getRecords();
+        page.setTotal(countService.count(userPageCountMode, "sys_user", getBaseMapper(), buildUserFilter(userQueryDTO)));
+        return users;
+    }
+
+    private LambdaQueryWrapper<SysUser> buildUserFilter(UserQueryDTO userQueryDTO) {
+        return new LambdaQueryWrapper<SysUser>()
                 .like(StringUtils.isNotBlank(userQueryDTO.getUsername()), SysUser::getUsername, userQueryDTO.getUsername())
                 .eq(StringUtils.isNotBlank(userQueryDTO.getRole()), SysUser::getRole, userQueryDTO.getRole())
                 .like(StringUtils.isNotBlank(userQueryDTO.getPhone()), SysUser::getPhone, userQueryDTO.getPhone())
                 .like(StringUtils.isNotBlank(userQueryDTO.getEmail()), SysUser::getEmail, userQueryDTO.getEmail())
-                .eq(userQueryDTO.getIsEnable() != null, SysUser::getIsEnable, userQueryDTO.getIsEnable())
-                .orderByDesc(SysUser::getCreatedAt)
-                .page(page)
-                .getRecords();
+                .eq(userQueryDTO.getIsEnable() != null, SysUser::getIsEnable, userQueryDTO.getIsEnable());
     }
 
     @Override
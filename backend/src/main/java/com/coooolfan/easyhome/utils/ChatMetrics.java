@@ -0,0 +1,66 @@
+package com.coooolfan.easyhome.utils;
+
+import com.coooolfan.easyhome.pojo.vo.ChatMetricsVO;
+import com.coooolfan.easyhome.pojo.vo.StageStatsVO;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 聊天链路的进程内指标：各阶段耗时与事件计数
+ */
+@Component
+public class ChatMetrics {
+
+    private final ConcurrentHashMap<String, Stage> stages = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public void record(String stage, long nanos) {
+        stages.computeIfAbsent(stage, k -> new Stage()).add(nanos);
+    }
+
+    /**
+     * 记录 Mono 从订阅到完成的耗时，取消或出错时不记录
+     */
+    public <T> Mono<T> time(String stage, Mono<T> mono) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return mono.doOnSuccess(v -> record(stage, System.nanoTime() - start));
+        });
+    }
+
+    public void increment(String counter) {
+        counters.computeIfAbsent(counter, k -> new LongAdder()).increment();
+    }
+
+    public ChatMetricsVO snapshot() {
+        Map<String, StageStatsVO> stageStats = new TreeMap<>();
+        stages.forEach((name, stage) -> stageStats.put(name, stage.toVO()));
+        Map<String, Long> counterStats = new TreeMap<>();
+        counters.forEach((name, adder) -> counterStats.put(name, adder.sum()));
+        return new ChatMetricsVO(stageStats, counterStats);
+    }
+
+    private static class Stage {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        StageStatsVO toVO() {
+            long n = count.sum();
+            return new StageStatsVO(n, n == 0 ? 0 : totalNanos.sum() / 1e6 / n, maxNanos.get() / 1e6);
+        }
+    }
+}
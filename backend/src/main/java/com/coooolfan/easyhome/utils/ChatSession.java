@@ -2,9 +2,10 @@ package com.coooolfan.easyhome.utils;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import org.noear.solon.ai.chat.ChatRole;
 import org.noear.solon.ai.chat.message.ChatMessage;
 
-import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Data
 @AllArgsConstructor
@@ -13,5 +14,37 @@ public class ChatSession {
 
     private boolean isSteaming = false;
 
-    private ArrayList<ChatMessage> chatContent;
+    /**
+     * 聊天记录，写时复制，流式回调追加消息时不影响其他线程遍历
+     */
+    private CopyOnWriteArrayList<ChatMessage> chatContent;
+
+    /**
+     * 已滑出历史窗口的对话摘要，尚无时为 null
+     */
+    private String summary;
+
+    /**
+     * 按条数与估算 token 数裁剪聊天记录，保留开头的系统消息与最新的一条消息，从最早的对话开始丢弃
+     *
+     * @return 被丢弃的消息条数
+     */
+    public int trim(int maxMessages, int maxTokens) {
+        int keepFrom = !chatContent.isEmpty() && chatContent.getFirst().getRole() == ChatRole.SYSTEM ? 1 : 0;
+        int tokens = 0;
+        for (ChatMessage chatMessage : chatContent) {
+            tokens += EasyHomeUtils.estimateTokens(chatMessage.getContent());
+        }
+        // 写时复制列表逐条删除代价高，先确定删除条数再一次性删除
+        int size = chatContent.size();
+        int end = keepFrom;
+        while (size - end > 1 && (size - end + keepFrom > maxMessages || tokens > maxTokens)) {
+            tokens -= EasyHomeUtils.estimateTokens(chatContent.get(end).getContent());
+            end++;
+        }
+        if (end > keepFrom) {
+            chatContent.subList(keepFrom, end).clear();
+        }
+        return end - keepFrom;
+    }
 }
@@ -0,0 +1,205 @@
+package com.coooolfan.easyhome.utils;
+
+import com.coooolfan.easyhome.pojo.dto.StreamChatResp;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一轮流式回答的中继：上游模型流只订阅一次，事件按序编号并在环形缓冲区中保留最近若干条，
+ * 客户端断线后携带 Last-Event-ID 重连即可从断点续传，不会重新调用模型
+ * <p>
+ * 每个订阅者有独立的有界队列，读取过慢的订阅者会被结束，重连后再从缓冲区补发；
+ * 所有订阅者断开超过宽限期后才取消上游。断点早于缓冲区时先补发一条 snapshot 事件携带目前的完整内容
+ */
+@Slf4j
+public class ChatStreamRelay {
+
+    private final String turnId;
+
+    private final int capacity;
+
+    private final int subscriberBuffer;
+
+    private final Duration grace;
+
+    private final Runnable onOverflow;
+
+    private final ArrayDeque<ServerSentEvent<StreamChatResp>> ring = new ArrayDeque<>();
+
+    private final List<Sinks.Many<ServerSentEvent<StreamChatResp>>> subscribers = new ArrayList<>();
+
+    /**
+     * 截至最新事件的完整回答，用于断点已滑出缓冲区时的补发
+     */
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * 已产生的事件数，事件序号从 1 开始
+     */
+    private long seq;
+
+    private boolean finished;
+
+    private Throwable error;
+
+    private Disposable upstream;
+
+    private Disposable cancelTimer;
+
+    /**
+     * @param turnId           本轮标识，作为事件ID前缀，区分同一会话的不同轮次
+     * @param capacity         环形缓冲区保留的事件数
+     * @param subscriberBuffer 单个订阅者最多积压的未发送事件数
+     * @param grace            所有订阅者断开后等待重连的时间
+     * @param onOverflow       订阅者因积压过多被结束时的回调
+     */
+    public ChatStreamRelay(String turnId, int capacity, int subscriberBuffer, Duration grace, Runnable onOverflow) {
+        this.turnId = turnId;
+        this.capacity = capacity;
+        this.subscriberBuffer = subscriberBuffer;
+        this.grace = grace;
+        this.onOverflow = onOverflow;
+    }
+
+    /**
+     * 订阅上游，应在第一个订阅者 {@link #subscribe(String)} 之后调用
+     */
+    public void start(Flux<StreamChatResp> source) {
+        Disposable disposable = source.subscribe(this::publish, this::fail, this::complete);
+        synchronized (this) {
+            upstream = disposable;
+        }
+    }
+
+    /**
+     * 订阅本轮事件
+     *
+     * @param lastEventId 客户端已收到的最后一个事件ID，为空或不属于本轮时从头发送
+     */
+    public synchronized Flux<ServerSentEvent<StreamChatResp>> subscribe(String lastEventId) {
+        List<ServerSentEvent<StreamChatResp>> replay = replayAfter(parseSeq(lastEventId));
+        if (finished) {
+            Flux<ServerSentEvent<StreamChatResp>> replayed = Flux.fromIterable(replay);
+            return error == null ? replayed : replayed.concatWith(Flux.error(error));
+        }
+        if (cancelTimer != null) {
+            cancelTimer.dispose();
+            cancelTimer = null;
+        }
+        Sinks.Many<ServerSentEvent<StreamChatResp>> sink = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<ServerSentEvent<StreamChatResp>>get(subscriberBuffer).get());
+        subscribers.add(sink);
+        return Flux.fromIterable(replay)
+                .concatWith(sink.asFlux())
+                .doFinally(signal -> detach(sink));
+    }
+
+    private List<ServerSentEvent<StreamChatResp>> replayAfter(long after) {
+        long oldest = seq - ring.size() + 1;
+        if (after >= oldest - 1) {
+            return ring.stream().skip(after - oldest + 1).toList();
+        }
+        // 断点已滑出缓冲区：已结束时补发最终事件即可，否则先补发目前的完整内容
+        ServerSentEvent<StreamChatResp> latest = ring.peekLast();
+        if (latest != null && latest.data() != null && latest.data().isFinished()) {
+            return List.of(latest);
+        }
+        return List.of(ServerSentEvent.builder(new StreamChatResp(null, "Assistant", false, text.toString()))
+                .id(turnId + "-" + seq)
+                .event("snapshot")
+                .build());
+    }
+
+    private long parseSeq(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(turnId + "-")) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(turnId.length() + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private synchronized void publish(StreamChatResp resp) {
+        seq++;
+        if (resp.isFinished() && resp.getAggregationMessage() != null) {
+            text.setLength(0);
+            text.append(resp.getAggregationMessage());
+        } else if (resp.getContent() != null) {
+            text.append(resp.getContent());
+        }
+        ServerSentEvent<StreamChatResp> event = ServerSentEvent.builder(resp)
+                .id(turnId + "-" + seq)
+                .event(resp.isFinished() ? "done" : "delta")
+                .build();
+        ring.addLast(event);
+        if (ring.size() > capacity) {
+            ring.removeFirst();
+        }
+        subscribers.removeIf(sink -> {
+            if (sink.tryEmitNext(event).isSuccess()) {
+                return false;
+            }
+            // 积压已满，结束该订阅者，客户端可凭最后收到的事件ID重连续传
+            sink.tryEmitComplete();
+            onOverflow.run();
+            return true;
+        });
+        scheduleCancelIfIdle();
+    }
+
+    private synchronized void complete() {
+        finished = true;
+        subscribers.forEach(Sinks.Many::tryEmitComplete);
+        subscribers.clear();
+    }
+
+    private synchronized void fail(Throwable e) {
+        finished = true;
+        error = e;
+        subscribers.forEach(sink -> sink.tryEmitError(e));
+        subscribers.clear();
+    }
+
+    private synchronized void detach(Sinks.Many<ServerSentEvent<StreamChatResp>> sink) {
+        subscribers.remove(sink);
+        scheduleCancelIfIdle();
+    }
+
+    private void scheduleCancelIfIdle() {
+        if (subscribers.isEmpty() && !finished && cancelTimer == null) {
+            cancelTimer = Mono.delay(grace).subscribe(v -> cancelIfAbandoned());
+        }
+    }
+
+    /**
+     * 宽限期内没有重连，取消上游模型流
+     */
+    private void cancelIfAbandoned() {
+        Disposable toCancel;
+        synchronized (this) {
+            cancelTimer = null;
+            if (!subscribers.isEmpty() || finished) {
+                return;
+            }
+            finished = true;
+            toCancel = upstream;
+        }
+        log.info("chat stream {} abandoned, cancel upstream", turnId);
+        // 取消会同步触发上游的收尾逻辑(保存部分回答、释放会话)，不在锁内执行
+        if (toCancel != null) {
+            toCancel.dispose();
+        }
+    }
+}
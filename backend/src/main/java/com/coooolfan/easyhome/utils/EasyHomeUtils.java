@@ -2,6 +2,11 @@ package com.coooolfan.easyhome.utils;
 
 import com.coooolfan.easyhome.pojo.entity.House;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
 public class EasyHomeUtils {
     public static String toString(House house) {
         return "此房屋位于" + house.getAddress() + "。" +
@@ -15,4 +20,41 @@ public class EasyHomeUtils {
                 "楼层为" + house.getFloor() + "，" +
                 "卖点有" + house.getTitle() + "。";
     }
+
+    /**
+     * 房源向量指纹：向量化模型 + 向量化文本的摘要，指纹不变时无需重新向量化
+     */
+    public static String embeddingFingerprint(String model, House house) {
+        return sha256Hex(model + "\n" + toString(house));
+    }
+
+    public static String sha256Hex(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 粗略估算文本 token 数：中日韩字符按 1 个 token，其余字符按 4 个字符 1 个 token
+     */
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            if (Character.isIdeographic(cp)) {
+                cjk++;
+            } else {
+                other++;
+            }
+            i += Character.charCount(cp);
+        }
+        return cjk + (other + 3) / 4;
+    }
 }
@@ -2,6 +2,8 @@ package com.coooolfan.easyhome.utils;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.ByteBuffer;
+
 /**
  * 向量处理工具类
  * 用于处理embedding向量的长度限制等操作
@@ -63,4 +65,28 @@ public class EmbeddingUtils {
         }
         return Math.min(embedding.length, MAX_EMBEDDING_LENGTH);
     }
+
+    /**
+     * 将向量编码为字节数组，用于缓存存储
+     *
+     * @param embedding float数组
+     * @return 每个元素4字节的字节数组
+     */
+    public static byte[] toBytes(float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.length * Float.BYTES);
+        buffer.asFloatBuffer().put(embedding);
+        return buffer.array();
+    }
+
+    /**
+     * 从字节数组还原向量
+     *
+     * @param bytes toBytes 生成的字节数组
+     * @return float数组
+     */
+    public static float[] fromBytes(byte[] bytes) {
+        float[] embedding = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(embedding);
+        return embedding;
+    }
 }
@@ -0,0 +1,45 @@
+package com.coooolfan.easyhome.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 倒数排名融合(Reciprocal Rank Fusion)
+ * <p>
+ * 每个结果在各路列表中的得分为 1 / (k + rank)，rank 从 1 开始，多路得分相加后降序。
+ * 只依赖名次不依赖原始分数，向量距离与三元组相似度无需归一化即可合并
+ */
+public class RankFusion {
+
+    /**
+     * @param k     平滑常数，越大名次靠后的结果权重衰减越慢
+     * @param limit 返回条数
+     * @param key   去重键，同一键在不同列表中视为同一结果，保留第一次出现的对象
+     * @param lists 各路已按相关度排序的结果
+     */
+    @SafeVarargs
+    public static <T, K> List<T> fuse(int k, int limit, Function<T, K> key, List<T>... lists) {
+        Map<K, Double> scores = new HashMap<>();
+        Map<K, T> items = new LinkedHashMap<>();
+        for (List<T> list : lists) {
+            for (int i = 0; i < list.size(); i++) {
+                T item = list.get(i);
+                K id = key.apply(item);
+                scores.merge(id, 1.0 / (k + i + 1), Double::sum);
+                items.putIfAbsent(id, item);
+            }
+        }
+        List<K> ids = new ArrayList<>(items.keySet());
+        // 同分时保持首次出现的顺序，即优先第一路结果
+        ids.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        List<T> fused = new ArrayList<>(Math.min(limit, ids.size()));
+        for (int i = 0; i < ids.size() && i < limit; i++) {
+            fused.add(items.get(ids.get(i)));
+        }
+        return fused;
+    }
+}
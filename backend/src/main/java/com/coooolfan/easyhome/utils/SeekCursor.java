@@ -0,0 +1,106 @@
+package com.coooolfan.easyhome.utils;
+
+import com.coooolfan.easyhome.constant.HouseConstant;
+import com.coooolfan.easyhome.exception.BaseException;
+import com.coooolfan.easyhome.pojo.entity.House;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 房源游标分页的游标编解码
+ * <p>
+ * 游标格式为 sortBy|排序列的值|id，Base64 编码；游标与生成它的排序方式绑定，换用其他排序方式时视为无效
+ */
+public class SeekCursor {
+
+    /**
+     * 游标分页支持的排序方式，与 sortBy 取值一一对应，同值时按 id 同向排序保证顺序稳定
+     */
+    public enum Sort {
+        PRICE_ASC("price-asc", "price", true),
+        PRICE_DESC("price-desc", "price", false),
+        AREA_ASC("area-asc", "area", true),
+        AREA_DESC("area-desc", "area", false),
+        TIME_DESC("time-desc", "created_at", false);
+
+        private final String sortBy;
+        private final String column;
+        private final boolean asc;
+
+        Sort(String sortBy, String column, boolean asc) {
+            this.sortBy = sortBy;
+            this.column = column;
+            this.asc = asc;
+        }
+
+        /**
+         * 未知或为空的 sortBy 按发布时间倒序
+         */
+        public static Sort of(String sortBy) {
+            for (Sort sort : values()) {
+                if (sort.sortBy.equals(sortBy)) {
+                    return sort;
+                }
+            }
+            return TIME_DESC;
+        }
+
+        public String column() {
+            return column;
+        }
+
+        public boolean asc() {
+            return asc;
+        }
+
+        Object valueOf(House house) {
+            return switch (this) {
+                case PRICE_ASC, PRICE_DESC -> house.getPrice();
+                case AREA_ASC, AREA_DESC -> house.getArea();
+                case TIME_DESC -> house.getCreatedAt();
+            };
+        }
+
+        Object parse(String value) {
+            return this == TIME_DESC ? LocalDateTime.parse(value) : Integer.valueOf(value);
+        }
+    }
+
+    /**
+     * 游标指向的位置：上一页最后一条的排序列的值与 id
+     */
+    public record Position(Object value, long id) {
+    }
+
+    /**
+     * 以本页最后一条房源生成下一页的游标
+     */
+    public static String encode(Sort sort, House last) {
+        String raw = sort.sortBy + "|" + sort.valueOf(last) + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     *
+     * @throws BaseException 游标格式错误或不是由当前排序方式生成
+     */
+    public static Position decode(Sort sort, String cursor) {
+        String[] parts;
+        Object value;
+        long id;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 3);
+            value = sort.parse(parts[1]);
+            id = Long.parseLong(parts[2]);
+        } catch (RuntimeException e) {
+            throw new BaseException(HouseConstant.INVALID_CURSOR);
+        }
+        if (!sort.sortBy.equals(parts[0])) {
+            throw new BaseException(HouseConstant.INVALID_CURSOR);
+        }
+        return new Position(value, id);
+    }
+}
@@ -19,7 +19,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Arrays;
 
 @Slf4j
 @SpringBootTest
@@ -73,11 +72,9 @@ class EasyhomeApplicationTests {
                             // 真实调用embeddingModel
                             EmbeddingResponse embeddingResponse = embeddingModel.input(commonKnowledgeVec.getContent()).call();
                             float[] embedding = embeddingResponse.getData().getFirst().getEmbedding();
-                            // 将float[]转换为PostgreSQL vector格式的字符串: [1,2,3,...]
-                            String vectorStr = Arrays.toString(embedding);
 
                             // 真实写入数据库
-                            commonKnowledgeVecMapper.updateHouseVec(commonKnowledgeVec.getId(), vectorStr);
+                            commonKnowledgeVecMapper.updateHouseVec(commonKnowledgeVec.getId(), embedding);
 
                             log.info("虚拟线程 {} 完成处理CommonKnowledgeVec ID: {}, 进度: {}/{}",
                                     Thread.currentThread().getName(),
@@ -155,11 +152,8 @@ class EasyhomeApplicationTests {
                             EmbeddingResponse resp = embeddingModel.input(str).call();
                             float[] embedding = resp.getData().getFirst().getEmbedding();
 
-                            // 将float[]转换为PostgreSQL vector格式的字符串: [1,2,3,...]
-                            String vectorStr = Arrays.toString(embedding);
-
                             // 真实写入数据库
-                            houseVecMapper.insertHouseVec(house.getId(), vectorStr);
+                            houseVecMapper.insertHouseVec(house.getId(), embedding);
 
                             log.info("虚拟线程 {} 完成处理House ID: {}, 进度: {}/{}",
                                     Thread.currentThread().getName(),
@@ -0,0 +1,87 @@
+package com.coooolfan.easyhome.benchmark;
+
+import com.coooolfan.easyhome.handle.VectorTypeHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 向量参数编码对比：原有的 Arrays.toString 文本向量 与 VectorTypeHandler 使用的 real[] 二进制格式
+ * <p>
+ * binaryEncode 按驱动发送 float[] 参数时的布局编码(数组头 20 字节，每个元素 4 字节长度 + 4 字节 float)，
+ * 运行 main 方法即可，结束时在日志中记录两种格式单次传输的字节数。
+ */
+@Slf4j
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorEncodingBenchmark {
+
+    private static final int FLOAT4_OID = 700;
+
+    private float[] embedding;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        embedding = new float[1536];
+        for (int i = 0; i < embedding.length; i++) {
+            embedding[i] = (random.nextFloat() - 0.5f) / 10;
+        }
+        text = Arrays.toString(embedding);
+    }
+
+    @Benchmark
+    public byte[] textEncode() {
+        return Arrays.toString(embedding).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return encodeBinary(embedding);
+    }
+
+    @Benchmark
+    public float[] textDecode() {
+        return VectorTypeHandler.parse(text);
+    }
+
+    static byte[] encodeBinary(float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(20 + embedding.length * 8);
+        buffer.putInt(1);
+        buffer.putInt(0);
+        buffer.putInt(FLOAT4_OID);
+        buffer.putInt(embedding.length);
+        buffer.putInt(1);
+        for (float value : embedding) {
+            buffer.putInt(4);
+            buffer.putFloat(value);
+        }
+        return buffer.array();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(VectorEncodingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+
+        VectorEncodingBenchmark benchmark = new VectorEncodingBenchmark();
+        benchmark.setup();
+        log.info("text bytes: {}, binary bytes: {}", benchmark.textEncode().length, benchmark.binaryEncode().length);
+    }
+}
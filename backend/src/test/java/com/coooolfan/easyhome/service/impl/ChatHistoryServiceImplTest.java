@@ -0,0 +1,171 @@
+package com.coooolfan.easyhome.service.impl;
+
+import com.coooolfan.easyhome.constant.LLMConstant;
+import com.coooolfan.easyhome.service.ChatHistoryService.HistoryFold;
+import com.coooolfan.easyhome.utils.ChatMetrics;
+import com.coooolfan.easyhome.utils.ChatSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.noear.solon.ai.chat.ChatModel;
+import org.noear.solon.ai.chat.ChatResponse;
+import org.noear.solon.ai.chat.ChatRole;
+import org.noear.solon.ai.chat.message.AssistantMessage;
+import org.noear.solon.ai.chat.message.ChatMessage;
+import org.noear.solon.ai.chat.message.SystemMessage;
+import org.noear.solon.ai.chat.message.UserMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ChatHistoryServiceImpl 单元测试：窗口预算为 10 token，纯 ASCII 文本每 4 个字符估算为 1 token
+ */
+class ChatHistoryServiceImplTest {
+
+    private final ChatModel rewriteModel = mock(ChatModel.class, RETURNS_DEEP_STUBS);
+
+    private final ChatHistoryServiceImpl chatHistoryService = new ChatHistoryServiceImpl(rewriteModel, new ChatMetrics());
+
+    private final SystemMessage system = new SystemMessage("sys");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(chatHistoryService, "windowTokens", 10);
+        ReflectionTestUtils.setField(chatHistoryService, "minFoldMessages", 2);
+        ReflectionTestUtils.setField(chatHistoryService, "summaryTimeout", Duration.ofSeconds(5));
+    }
+
+    private static String text(int tokens) {
+        return "a".repeat(tokens * 4);
+    }
+
+    private static ChatSession session(String summary, ChatMessage... messages) {
+        return new ChatSession("uuid", false, new CopyOnWriteArrayList<>(messages), summary);
+    }
+
+    private void summaryReturns(String summary) throws Exception {
+        ChatResponse resp = mock(ChatResponse.class, RETURNS_DEEP_STUBS);
+        when(resp.getAggregationMessage().getContent()).thenReturn(summary);
+        when(rewriteModel.prompt(anyString()).stream()).thenReturn(Flux.just(resp));
+    }
+
+    @Test
+    void windowKeepsSystemMessagesAndSummary() {
+        UserMessage latest = new UserMessage(text(6));
+        ChatSession chatSession = session("earlier", system,
+                new UserMessage(text(6)), new AssistantMessage(text(6)), latest);
+
+        List<ChatMessage> window = chatHistoryService.window(chatSession);
+
+        assertThat(window).hasSize(3);
+        assertThat(window.get(0)).isSameAs(system);
+        assertThat(window.get(1).getRole()).isEqualTo(ChatRole.SYSTEM);
+        assertThat(window.get(1).getContent()).isEqualTo(LLMConstant.HISTORY_SUMMARY_PREFIX + "earlier");
+        assertThat(window.get(2)).isSameAs(latest);
+    }
+
+    @Test
+    void windowKeepsLatestMessageOverBudget() {
+        AssistantMessage latest = new AssistantMessage(text(50));
+        ChatSession chatSession = session(null, system, new UserMessage(text(2)), latest);
+
+        assertThat(chatHistoryService.window(chatSession)).containsExactly(system, latest);
+    }
+
+    @Test
+    void windowKeepsSystemMessagesOverBudget() {
+        SystemMessage longSystem = new SystemMessage(text(50));
+        UserMessage latest = new UserMessage(text(2));
+        ChatSession chatSession = session(null, longSystem, latest);
+
+        assertThat(chatHistoryService.window(chatSession)).containsExactly(longSystem, latest);
+    }
+
+    @Test
+    void summarizeSkipsBelowMinFoldMessages() {
+        ReflectionTestUtils.setField(chatHistoryService, "minFoldMessages", 3);
+        ChatSession chatSession = session(null, system,
+                new UserMessage(text(6)), new AssistantMessage(text(6)), new UserMessage(text(6)));
+
+        assertThat(chatHistoryService.summarize(chatSession).blockOptional()).isEmpty();
+        verify(rewriteModel, never()).prompt(anyString());
+    }
+
+    @Test
+    void foldRemovesMessagesOnSuccess() throws Exception {
+        summaryReturns("new summary");
+        UserMessage first = new UserMessage(text(6));
+        AssistantMessage second = new AssistantMessage(text(6));
+        UserMessage latest = new UserMessage(text(6));
+        ChatSession chatSession = session(null, system, first, second, latest);
+
+        HistoryFold fold = chatHistoryService.summarize(chatSession).block();
+
+        assertThat(fold).isNotNull();
+        assertThat(fold.folded()).containsExactly(first, second);
+        assertThat(fold.previous()).isNull();
+        assertThat(fold.summary()).isEqualTo("new summary");
+        assertThat(chatHistoryService.applyFold(chatSession, fold)).isTrue();
+        assertThat(chatSession.getChatContent()).containsExactly(system, latest);
+        assertThat(chatSession.getSummary()).isEqualTo("new summary");
+    }
+
+    @Test
+    void failedSummaryKeepsHistory() throws Exception {
+        when(rewriteModel.prompt(anyString()).stream()).thenReturn(Flux.error(new IOException("timeout")));
+        ChatSession chatSession = session("earlier", system,
+                new UserMessage(text(6)), new AssistantMessage(text(6)), new UserMessage(text(6)));
+
+        assertThat(chatHistoryService.summarize(chatSession).blockOptional()).isEmpty();
+        assertThat(chatSession.getChatContent()).hasSize(4);
+        assertThat(chatSession.getSummary()).isEqualTo("earlier");
+    }
+
+    @Test
+    void applyFoldMatchesReloadedCopy() throws Exception {
+        summaryReturns("new summary");
+        ChatSession chatSession = session(null, system,
+                new UserMessage(text(6)), new AssistantMessage(text(6)), new UserMessage(text(6)));
+        HistoryFold fold = chatHistoryService.summarize(chatSession).block();
+        // 模拟从 Redis 重新读取的会话，消息内容相同但不是同一对象
+        UserMessage latest = new UserMessage(text(6));
+        ChatSession reloaded = session(null, system,
+                new UserMessage(text(6)), new AssistantMessage(text(6)), latest);
+
+        assertThat(chatHistoryService.applyFold(reloaded, fold)).isTrue();
+        assertThat(reloaded.getChatContent()).containsExactly(system, latest);
+    }
+
+    @Test
+    void applyFoldRejectsStaleFold() throws Exception {
+        summaryReturns("new summary");
+        ChatSession chatSession = session(null, system,
+                new UserMessage(text(6)), new AssistantMessage(text(6)), new UserMessage(text(6)));
+        HistoryFold fold = chatHistoryService.summarize(chatSession).block();
+
+        // 摘要已被其他合并更新
+        chatSession.setSummary("other");
+        assertThat(chatHistoryService.applyFold(chatSession, fold)).isFalse();
+        assertThat(chatSession.getChatContent()).hasSize(4);
+        assertThat(chatSession.getSummary()).isEqualTo("other");
+
+        // 开头的消息已被裁剪
+        chatSession.setSummary(null);
+        chatSession.getChatContent().remove(1);
+        assertThat(chatHistoryService.applyFold(chatSession, fold)).isFalse();
+        assertThat(chatSession.getChatContent()).hasSize(3);
+        assertThat(chatSession.getSummary()).isNull();
+    }
+}
@@ -0,0 +1,161 @@
+package com.coooolfan.easyhome.utils;
+
+import com.coooolfan.easyhome.pojo.dto.StreamChatResp;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ChatStreamRelay 单元测试：上游由测试线程同步发出事件，订阅者同步收到，结果可直接断言
+ */
+class ChatStreamRelayTest {
+
+    private static final Duration LONG_GRACE = Duration.ofSeconds(30);
+
+    private final Sinks.Many<StreamChatResp> source = Sinks.many().unicast().onBackpressureBuffer();
+
+    private static List<ServerSentEvent<StreamChatResp>> collect(Flux<ServerSentEvent<StreamChatResp>> flux) {
+        List<ServerSentEvent<StreamChatResp>> events = new CopyOnWriteArrayList<>();
+        flux.subscribe(events::add);
+        return events;
+    }
+
+    private static List<String> ids(List<ServerSentEvent<StreamChatResp>> events) {
+        return events.stream().map(ServerSentEvent::id).toList();
+    }
+
+    private void emit(String... deltas) {
+        for (String delta : deltas) {
+            source.tryEmitNext(StreamChatResp.delta(delta));
+        }
+    }
+
+    @Test
+    void resumeReplaysEventsAfterLastEventId() {
+        ChatStreamRelay relay = new ChatStreamRelay("t", 8, 16, LONG_GRACE, () -> {
+        });
+        List<ServerSentEvent<StreamChatResp>> first = collect(relay.subscribe(null));
+        relay.start(source.asFlux());
+        emit("a", "b", "c");
+
+        List<ServerSentEvent<StreamChatResp>> resumed = collect(relay.subscribe("t-2"));
+        source.tryEmitNext(StreamChatResp.done("abc"));
+        source.tryEmitComplete();
+
+        assertThat(ids(first)).containsExactly("t-1", "t-2", "t-3", "t-4");
+        assertThat(ids(resumed)).containsExactly("t-3", "t-4");
+        assertThat(resumed.getLast().event()).isEqualTo("done");
+
+        // 已结束的轮次只补发断点之后的事件
+        List<ServerSentEvent<StreamChatResp>> afterFinish = relay.subscribe("t-3").collectList().block();
+        assertThat(ids(afterFinish)).containsExactly("t-4");
+    }
+
+    @Test
+    void unknownLastEventIdReplaysFromStart() {
+        ChatStreamRelay relay = new ChatStreamRelay("t", 8, 16, LONG_GRACE, () -> {
+        });
+        collect(relay.subscribe(null));
+        relay.start(source.asFlux());
+        emit("a", "b");
+
+        assertThat(ids(collect(relay.subscribe("other-1")))).containsExactly("t-1", "t-2");
+    }
+
+    @Test
+    void lastEventIdOutsideRingSendsSnapshot() {
+        ChatStreamRelay relay = new ChatStreamRelay("t", 2, 16, LONG_GRACE, () -> {
+        });
+        collect(relay.subscribe(null));
+        relay.start(source.asFlux());
+        emit("a", "b", "c");
+
+        List<ServerSentEvent<StreamChatResp>> resumed = collect(relay.subscribe("t-0"));
+        emit("d");
+
+        assertThat(ids(resumed)).containsExactly("t-3", "t-4");
+        assertThat(resumed.getFirst().event()).isEqualTo("snapshot");
+        assertThat(resumed.getFirst().data().getAggregationMessage()).isEqualTo("abc");
+        assertThat(resumed.get(1).data().getContent()).isEqualTo("d");
+
+        // 已结束时断点滑出缓冲区，只补发最终事件
+        source.tryEmitNext(StreamChatResp.done("abcd"));
+        source.tryEmitComplete();
+        List<ServerSentEvent<StreamChatResp>> afterFinish = relay.subscribe("t-1").collectList().block();
+        assertThat(ids(afterFinish)).containsExactly("t-5");
+        assertThat(afterFinish.getFirst().data().getAggregationMessage()).isEqualTo("abcd");
+    }
+
+    @Test
+    void overflowedSubscriberCanResumeFromLastReceivedEvent() {
+        AtomicInteger overflows = new AtomicInteger();
+        ChatStreamRelay relay = new ChatStreamRelay("t", 64, 2, LONG_GRACE, overflows::incrementAndGet);
+        // 先不消费，事件积压在订阅者队列中直至溢出
+        Flux<ServerSentEvent<StreamChatResp>> slow = relay.subscribe(null);
+        relay.start(source.asFlux());
+        for (int i = 0; i < 40; i++) {
+            emit(String.valueOf(i));
+        }
+
+        assertThat(overflows.get()).isEqualTo(1);
+        AtomicBoolean completed = new AtomicBoolean();
+        List<ServerSentEvent<StreamChatResp>> received = new CopyOnWriteArrayList<>();
+        slow.subscribe(received::add, e -> {
+        }, () -> completed.set(true));
+        assertThat(completed).isTrue();
+        assertThat(received).isNotEmpty().hasSizeLessThan(40);
+
+        List<ServerSentEvent<StreamChatResp>> resumed = collect(relay.subscribe(received.getLast().id()));
+        source.tryEmitNext(StreamChatResp.done("done"));
+        source.tryEmitComplete();
+
+        List<String> all = new ArrayList<>(ids(received));
+        all.addAll(ids(resumed));
+        assertThat(all).hasSize(41).doesNotHaveDuplicates();
+        assertThat(all.getLast()).isEqualTo("t-41");
+    }
+
+    @Test
+    void upstreamCancelledAfterGracePeriodWithoutSubscribers() throws InterruptedException {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        ChatStreamRelay relay = new ChatStreamRelay("t", 8, 16, Duration.ofMillis(100), () -> {
+        });
+        Disposable client = relay.subscribe(null).subscribe();
+        relay.start(source.asFlux().doOnCancel(cancelled::countDown));
+        emit("a");
+        client.dispose();
+
+        assertThat(cancelled.await(2, TimeUnit.SECONDS)).isTrue();
+        // 取消后的轮次视为结束，重连只补发已有事件
+        assertThat(ids(relay.subscribe("t-0").collectList().block())).containsExactly("t-1");
+    }
+
+    @Test
+    void reconnectWithinGracePeriodKeepsUpstream() throws InterruptedException {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        ChatStreamRelay relay = new ChatStreamRelay("t", 8, 16, Duration.ofMillis(200), () -> {
+        });
+        Disposable client = relay.subscribe(null).subscribe();
+        relay.start(source.asFlux().doOnCancel(cancelled::countDown));
+        emit("a");
+        client.dispose();
+
+        List<ServerSentEvent<StreamChatResp>> resumed = collect(relay.subscribe("t-1"));
+        assertThat(cancelled.await(500, TimeUnit.MILLISECONDS)).isFalse();
+        emit("b");
+        assertThat(ids(resumed)).containsExactly("t-2");
+    }
+}
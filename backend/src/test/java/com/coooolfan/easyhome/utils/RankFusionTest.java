@@ -0,0 +1,62 @@
+package com.coooolfan.easyhome.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RankFusionTest {
+
+    record Item(long id, String source) {
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::id).toList();
+    }
+
+    @Test
+    void itemInBothListsRanksFirst() {
+        List<Item> byVector = List.of(new Item(1, "vector"), new Item(2, "vector"), new Item(3, "vector"));
+        List<Item> byKeyword = List.of(new Item(4, "keyword"), new Item(3, "keyword"));
+
+        List<Item> fused = RankFusion.fuse(60, 10, Item::id, byVector, byKeyword);
+
+        // 3: 1/63 + 1/62 最高；1 与 4 同为 1/61，按首次出现顺序；2: 1/62
+        assertThat(ids(fused)).containsExactly(3L, 1L, 4L, 2L);
+    }
+
+    @Test
+    void duplicateKeepsFirstOccurrence() {
+        List<Item> byVector = List.of(new Item(1, "vector"));
+        List<Item> byKeyword = List.of(new Item(1, "keyword"));
+
+        List<Item> fused = RankFusion.fuse(60, 10, Item::id, byVector, byKeyword);
+
+        assertThat(fused).containsExactly(new Item(1, "vector"));
+    }
+
+    @Test
+    void tiesKeepFirstListOrder() {
+        List<Item> byVector = List.of(new Item(1, "vector"), new Item(2, "vector"));
+        List<Item> byKeyword = List.of(new Item(3, "keyword"), new Item(4, "keyword"));
+
+        List<Item> fused = RankFusion.fuse(60, 10, Item::id, byVector, byKeyword);
+
+        assertThat(ids(fused)).containsExactly(1L, 3L, 2L, 4L);
+    }
+
+    @Test
+    void limitTruncatesAndDoesNotPad() {
+        List<Item> byVector = List.of(new Item(1, "vector"), new Item(2, "vector"), new Item(3, "vector"));
+
+        assertThat(ids(RankFusion.fuse(60, 2, Item::id, byVector))).containsExactly(1L, 2L);
+        assertThat(ids(RankFusion.fuse(60, 10, Item::id, byVector))).containsExactly(1L, 2L, 3L);
+        assertThat(RankFusion.fuse(60, 0, Item::id, byVector)).isEmpty();
+    }
+
+    @Test
+    void emptyListsGiveEmptyResult() {
+        assertThat(RankFusion.fuse(60, 10, Item::id, List.<Item>of(), List.<Item>of())).isEmpty();
+    }
+}
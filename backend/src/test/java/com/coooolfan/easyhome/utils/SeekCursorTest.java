@@ -0,0 +1,89 @@
+package com.coooolfan.easyhome.utils;
+
+import com.coooolfan.easyhome.constant.HouseConstant;
+import com.coooolfan.easyhome.exception.BaseException;
+import com.coooolfan.easyhome.pojo.entity.House;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SeekCursorTest {
+
+    private static House house(long id, int price, int area, LocalDateTime createdAt) {
+        House house = new House();
+        house.setId(id);
+        house.setPrice(price);
+        house.setArea(area);
+        house.setCreatedAt(createdAt);
+        return house;
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void timeCursorRoundTrip() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123_456_000);
+        String cursor = SeekCursor.encode(SeekCursor.Sort.TIME_DESC, house(42, 1_000_000, 80, createdAt));
+
+        SeekCursor.Position position = SeekCursor.decode(SeekCursor.Sort.TIME_DESC, cursor);
+
+        assertThat(position.value()).isEqualTo(createdAt);
+        assertThat(position.id()).isEqualTo(42);
+        // URL 安全且不带填充，可直接放在查询参数中
+        assertThat(cursor).doesNotContain("+", "/", "=");
+    }
+
+    @Test
+    void integerCursorRoundTrip() {
+        House house = house(7, 2_500_000, 100, LocalDateTime.now());
+
+        SeekCursor.Position byPrice = SeekCursor.decode(SeekCursor.Sort.PRICE_DESC,
+                SeekCursor.encode(SeekCursor.Sort.PRICE_DESC, house));
+        SeekCursor.Position byArea = SeekCursor.decode(SeekCursor.Sort.AREA_ASC,
+                SeekCursor.encode(SeekCursor.Sort.AREA_ASC, house));
+
+        assertThat(byPrice).isEqualTo(new SeekCursor.Position(2_500_000, 7));
+        assertThat(byArea).isEqualTo(new SeekCursor.Position(100, 7));
+    }
+
+    @Test
+    void cursorFromAnotherSortIsRejected() {
+        House house = house(7, 2_500_000, 100, LocalDateTime.now());
+        String byPrice = SeekCursor.encode(SeekCursor.Sort.PRICE_ASC, house);
+        String byTime = SeekCursor.encode(SeekCursor.Sort.TIME_DESC, house);
+
+        // 值的类型相同也不能混用
+        assertThatThrownBy(() -> SeekCursor.decode(SeekCursor.Sort.PRICE_DESC, byPrice))
+                .isInstanceOf(BaseException.class).hasMessage(HouseConstant.INVALID_CURSOR);
+        assertThatThrownBy(() -> SeekCursor.decode(SeekCursor.Sort.AREA_ASC, byTime))
+                .isInstanceOf(BaseException.class).hasMessage(HouseConstant.INVALID_CURSOR);
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        for (String cursor : new String[]{"not base64!", raw("price-asc"), raw("price-asc|abc|1"),
+                raw("price-asc|100|x"), raw("price-asc|2025-03-01T12:00|1")}) {
+            assertThatThrownBy(() -> SeekCursor.decode(SeekCursor.Sort.PRICE_ASC, cursor))
+                    .as(cursor)
+                    .isInstanceOf(BaseException.class)
+                    .hasMessage(HouseConstant.INVALID_CURSOR);
+        }
+        assertThatThrownBy(() -> SeekCursor.decode(SeekCursor.Sort.TIME_DESC, raw("time-desc|null|1")))
+                .isInstanceOf(BaseException.class)
+                .hasMessage(HouseConstant.INVALID_CURSOR);
+    }
+
+    @Test
+    void unknownSortFallsBackToTimeDesc() {
+        assertThat(SeekCursor.Sort.of(null)).isEqualTo(SeekCursor.Sort.TIME_DESC);
+        assertThat(SeekCursor.Sort.of("unknown")).isEqualTo(SeekCursor.Sort.TIME_DESC);
+        assertThat(SeekCursor.Sort.of("area-desc")).isEqualTo(SeekCursor.Sort.AREA_DESC);
+    }
+}
@@ -0,0 +1,80 @@
+-- 房源分页检索基准：100 万条房源下对比 LIKE 分页与三元组排序检索的耗时
+-- 用法：在执行过 init.sql 与 migration 的空库中运行 psql -f sql/benchmark/house_search_1m.sql
+-- 生成的数据插入 houses 表，基准结束后会清理，请勿在业务库中执行
+-- 库需为 UTF8 编码，且 LC_CTYPE 不能是 C/POSIX(如 zh_CN.UTF-8、en_US.UTF-8 或 C.UTF-8)：
+-- pg_trgm 按 LC_CTYPE 判断字母数字，C 下中文字符不产生三元组，三元组索引与相似度检索对中文全部失效
+-- 运行后请将各查询 EXPLAIN ANALYZE 的 Execution Time 与下方环境信息一并记录在本文件末尾的结果部分
+\timing on
+
+-- 环境信息：版本、编码与区域设置，show_trgm 为空说明 LC_CTYPE 不支持中文
+SELECT version();
+SELECT pg_encoding_to_char(encoding) AS encoding, datcollate, datctype
+FROM pg_database WHERE datname = current_database();
+SELECT show_trgm('汇景新城');
+
+-- 生成 100 万条房源，小区名、区域、户型、装修从固定词表中随机组合
+INSERT INTO houses (title, address, price, unit_price, area, rooms, floor, build_year, orientation, decoration, tag)
+SELECT c.name || ' ' || r.rooms || ' ' || d.decoration,
+       z.zone || c.name || (g % 30 + 1) || '号楼' || (g % 6 + 1) || '单元' || (g % 3000 + 101),
+       area * unit_price,
+       unit_price,
+       area,
+       r.rooms,
+       (g % 30 + 1) || '/30层',
+       1990 + g % 35,
+       (ARRAY ['南北', '南向', '东南', '西南', '东西'])[g % 5 + 1],
+       d.decoration,
+       (ARRAY ['地铁房,学区房', '满五唯一,业主急售', '南北通透,采光好', '近商圈,交通便利', '公园景观,环境好'])[g % 5 + 1]
+FROM generate_series(1, 1000000) AS g
+         CROSS JOIN LATERAL (SELECT 40 + (g::bigint * 7919) % 160 AS area, 8000 + (g::bigint * 104729) % 40000 AS unit_price) AS n
+         CROSS JOIN LATERAL (SELECT (ARRAY ['幸福小区', '汇景新城', '公园一号', '新城花园', '嘉禾公寓', '学府花园', '临湖别墅区',
+                                            '阳光水岸', '翠湖天地', '金色家园', '锦绣江南', '海棠湾'])[(g * 31) % 12 + 1]
+                                         || ((g * 13) % 500) AS name) AS c
+         CROSS JOIN LATERAL (SELECT (ARRAY ['高新区', '市中心', '滨江区', '经开区', '老城区'])[g % 5 + 1] AS zone) AS z
+         CROSS JOIN LATERAL (SELECT (ARRAY ['1室1厅1卫', '2室1厅1卫', '2室2厅1卫', '3室2厅1卫', '3室2厅2卫', '4室2厅2卫'])[g % 6 + 1] AS rooms) AS r
+         CROSS JOIN LATERAL (SELECT (ARRAY ['毛坯', '简装', '精装', '豪装'])[g % 4 + 1] AS decoration) AS d;
+
+ANALYZE houses;
+
+-- 1. 原分页查询：标题模糊 + 按创建时间排序，第 1 页与 COUNT
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM houses WHERE title LIKE '%汇景新城1%' ORDER BY created_at DESC LIMIT 10;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) FROM houses WHERE title LIKE '%汇景新城1%';
+
+-- 2. 地址模糊 + 价格区间
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM houses WHERE address LIKE '%滨江区海棠湾%' AND price BETWEEN 1000000 AND 3000000
+ORDER BY created_at DESC LIMIT 10;
+
+-- 3. 三元组排序检索(/api/houses/search)：词相似度过滤 + 按距离排序
+SET pg_trgm.word_similarity_threshold = 0.4;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT *, search_doc <->> '汇景新城 3室2厅 精装' AS distance FROM houses
+WHERE '汇景新城 3室2厅 精装' <% search_doc
+ORDER BY search_doc <->> '汇景新城 3室2厅 精装' LIMIT 10;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) FROM houses WHERE '汇景新城 3室2厅 精装' <% search_doc;
+RESET pg_trgm.word_similarity_threshold;
+
+-- 4. 对照：禁用索引后的同一 LIKE 查询，即迁移前的全表扫描耗时
+SET enable_bitmapscan = off;
+SET enable_indexscan = off;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) FROM houses WHERE title LIKE '%汇景新城1%';
+RESET enable_bitmapscan;
+RESET enable_indexscan;
+
+-- 清理基准数据
+DELETE FROM houses WHERE id > (SELECT MAX(id) - 1000000 FROM houses);
+VACUUM ANALYZE houses;
+
+-- 结果(Execution Time, ms)
+-- 环境：PostgreSQL 17.11 / 1 vCPU / 5GB 内存 / shared_buffers=1GB, work_mem=64MB / UTF8, C.UTF-8
+-- 1. LIKE 第 1 页 0.28 | LIKE COUNT 59.2(idx_houses_title_trgm 位图扫描，命中 18667 行)
+-- 2. 地址 LIKE + 价格区间 0.66(按 created_at 倒序索引扫描，前 10 条命中即停止)
+-- 3. 三元组排序第 1 页 3222 | 三元组 COUNT 17770(阈值 0.4，命中约 8.3 万行，COUNT 走并行全表扫描)
+--    无命中的关键词(汇景新城 三居 精装)：COUNT 368，GiST 索引扫描 2.4 万个缓冲区后返回 0 行
+-- 4. 全表扫描 COUNT(对照) 346
+-- 结论：LIKE COUNT 在三元组索引下由全表扫描的 346 降至 59，第 1 页因按 created_at 索引提前终止只需 0.28；
+-- 宽泛关键词的三元组检索第 1 页需逐条计算距离，COUNT 代价远高于 LIKE 全表扫描，/api/houses/search 的总数统计在百万级数据下不可用
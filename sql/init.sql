@@ -28,8 +28,10 @@ CREATE TABLE houses (
     tag VARCHAR(500), 
     image VARCHAR(500),
     user_id BIGINT,  
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- 关键词检索文本，由标题、地址、标签拼接
+    search_doc TEXT GENERATED ALWAYS AS (title || ' ' || address || ' ' || COALESCE(tag, '')) STORED
 );
 
 -- 插入测试数据时
@@ -64,10 +66,26 @@ CREATE EXTENSION vector;
 CREATE TABLE houses_vec (
     id BIGSERIAL PRIMARY KEY,
     house_id BIGINT NOT NULL,
-    embedding vector(1536) NOT NULL
+    embedding vector(1536) NOT NULL,
+    -- 生成向量时的房源指纹，见 EasyHomeUtils.embeddingFingerprint
+    content_hash TEXT
 );
 
 CREATE INDEX ON houses_vec USING hnsw(embedding vector_l2_ops);
+CREATE UNIQUE INDEX uk_houses_vec_house_id ON houses_vec (house_id);
+
+-- 待向量化房源，写房源时同事务登记，由后台任务批量向量化
+CREATE TABLE house_vec_outbox (
+    house_id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_until TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_house_vec_outbox_next_attempt ON house_vec_outbox (next_attempt_at);
+INSERT INTO house_vec_outbox (house_id) SELECT id FROM houses;
 
 CREATE TABLE common_knowledge_vec (
     id BIGSERIAL PRIMARY KEY,
@@ -76,6 +94,20 @@ CREATE TABLE common_knowledge_vec (
 );
 CREATE INDEX ON common_knowledge_vec USING hnsw(embedding vector_l2_ops);
 
+-- 关键词检索：三元组 GiST 索引，支持按 <->> 距离做 KNN 排序
+-- 数据库的 LC_CTYPE 需为 UTF-8 区域(如 zh_CN.UTF-8、C.UTF-8)，C/POSIX 下中文不产生三元组，检索与索引对中文无效
+CREATE EXTENSION pg_trgm;
+CREATE INDEX idx_houses_search_doc_trgm ON houses USING gist (search_doc gist_trgm_ops);
+CREATE INDEX idx_common_knowledge_content_trgm ON common_knowledge_vec USING gist (content gist_trgm_ops);
+-- 房源分页模糊查询使用的三元组 GIN 索引
+CREATE INDEX idx_houses_title_trgm ON houses USING gin (title gin_trgm_ops);
+CREATE INDEX idx_houses_address_trgm ON houses USING gin (address gin_trgm_ops);
+CREATE INDEX idx_houses_rooms_trgm ON houses USING gin (rooms gin_trgm_ops);
+-- 游标分页使用的 (排序列, id) 复合索引
+CREATE INDEX idx_houses_price_id ON houses (price, id);
+CREATE INDEX idx_houses_area_id ON houses (area, id);
+CREATE INDEX idx_houses_created_at_id ON houses (created_at, id);
+
 -- 创建房源推送记录表
 CREATE TABLE house_records (
     id BIGSERIAL PRIMARY KEY,
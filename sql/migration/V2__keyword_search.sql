@@ -0,0 +1,11 @@
+-- 关键词检索：与向量检索结果做倒数排名融合(RRF)，弥补向量对小区名、地址等专有名词不敏感的问题
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- 房源检索文本，由标题、地址、标签拼接
+ALTER TABLE houses
+    ADD COLUMN search_doc TEXT GENERATED ALWAYS AS (title || ' ' || address || ' ' || COALESCE(tag, '')) STORED;
+
+-- GiST 三元组索引支持按 <->> 距离做 KNN 排序，每轮对话只取前若干条
+CREATE INDEX idx_houses_search_doc_trgm ON houses USING gist (search_doc gist_trgm_ops);
+
+CREATE INDEX idx_common_knowledge_content_trgm ON common_knowledge_vec USING gist (content gist_trgm_ops);
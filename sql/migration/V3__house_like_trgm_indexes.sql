@@ -0,0 +1,7 @@
+-- 房源分页的 title / address / rooms 模糊查询('%x%')使用三元组 GIN 索引，避免每次分页与 COUNT 都全表扫描
+-- 注意：少于 3 个字符的关键词无法提取有效三元组，仍会退化为扫描
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_houses_title_trgm ON houses USING gin (title gin_trgm_ops);
+CREATE INDEX idx_houses_address_trgm ON houses USING gin (address gin_trgm_ops);
+CREATE INDEX idx_houses_rooms_trgm ON houses USING gin (rooms gin_trgm_ops);
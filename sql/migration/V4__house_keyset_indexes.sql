@@ -0,0 +1,4 @@
+-- 游标分页 /api/houses/cursor 按 (排序列, id) 行值比较定位下一页，降序时反向扫描同一索引
+CREATE INDEX idx_houses_price_id ON houses (price, id);
+CREATE INDEX idx_houses_area_id ON houses (area, id);
+CREATE INDEX idx_houses_created_at_id ON houses (created_at, id);
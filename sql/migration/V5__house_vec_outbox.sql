@@ -0,0 +1,21 @@
+-- 房源向量改为事务外异步生成：写房源时在同一事务内登记待向量化记录，后台任务批量向量化后回写
+-- 同一房源多次变更合并为一条记录，version 用于识别处理期间的新变更
+CREATE TABLE house_vec_outbox (
+    house_id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_until TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_house_vec_outbox_next_attempt ON house_vec_outbox (next_attempt_at);
+
+-- 向量回写使用 ON CONFLICT (house_id) 覆盖，先清理历史重复数据
+DELETE FROM houses_vec a USING houses_vec b WHERE a.house_id = b.house_id AND a.id < b.id;
+CREATE UNIQUE INDEX uk_houses_vec_house_id ON houses_vec (house_id);
+
+-- 补登已有房源中缺少向量的记录
+INSERT INTO house_vec_outbox (house_id)
+SELECT h.id FROM houses h WHERE NOT EXISTS (SELECT 1 FROM houses_vec v WHERE v.house_id = h.id);
@@ -0,0 +1,3 @@
+-- 房源向量指纹：向量化模型与向量化文本的 SHA-256，指纹不变时更新与重建均跳过向量化
+-- 历史向量没有指纹，会在下一次更新或重建时重新生成
+ALTER TABLE houses_vec ADD COLUMN content_hash TEXT;
@@ -0,0 +1,3 @@
+-- 游标分页按 (created_at, id) 行值比较，created_at 为空的房源会被跳过且无法编码进游标，补齐后改为非空
+UPDATE houses SET created_at = COALESCE(updated_at, CURRENT_TIMESTAMP) WHERE created_at IS NULL;
+ALTER TABLE houses ALTER COLUMN created_at SET NOT NULL;